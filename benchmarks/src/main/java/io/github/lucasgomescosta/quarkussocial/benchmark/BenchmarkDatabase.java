@@ -0,0 +1,168 @@
+package io.github.lucasgomescosta.quarkussocial.benchmark;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Follower;
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.domain.model.TimelineEntry;
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Embedded H2 database with the application schema (created by Hibernate from the entities) and a
+ * social graph seeded with plain JDBC batches.
+ * <p>
+ * Follow edges are drawn from a Zipf distribution over users, so a few accounts have many
+ * followers and most have few, as in production. Sizes come from system properties:
+ * {@code bench.users} (10000), {@code bench.edges} (1000000) and {@code bench.posts-per-user} (10).
+ */
+public class BenchmarkDatabase implements AutoCloseable {
+
+    private static final String URL = "jdbc:h2:mem:quarkus-social-bench;DB_CLOSE_DELAY=-1";
+    private static final long SEED = 42;
+
+    public final int users = Integer.getInteger("bench.users", 10_000);
+    public final int edges = Integer.getInteger("bench.edges", 1_000_000);
+    public final int postsPerUser = Integer.getInteger("bench.posts-per-user", 10);
+
+    private final StandardServiceRegistry registry;
+    private final SessionFactory sessionFactory;
+    private Zipf zipf;
+
+    public BenchmarkDatabase() throws SQLException {
+        registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.URL, URL)
+                .applySetting(AvailableSettings.USER, "sa")
+                .applySetting(AvailableSettings.PASS, "sa")
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .build();
+
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Post.class)
+                .addAnnotatedClass(Follower.class)
+                .addAnnotatedClass(TimelineEntry.class)
+                .buildMetadata()
+                .buildSessionFactory();
+
+        seed();
+    }
+
+    public EntityManager createEntityManager() {
+        return sessionFactory.createEntityManager();
+    }
+
+    /**
+     * Random user id following the same Zipf distribution as the seeded follow edges.
+     */
+    public long popularUser(Random random) {
+        return zipf.sample(random);
+    }
+
+    private void seed() throws SQLException {
+        zipf = new Zipf(users, 1.0);
+        var random = new Random(SEED);
+
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "sa")) {
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into users (id, name, age, followers_count, following_count, posts_count, " +
+                            "followers_version) " +
+                            "values (?, ?, ?, 0, 0, 0, 0)")) {
+                for (long id = 1; id <= users; id++) {
+                    insert.setLong(1, id);
+                    insert.setString(2, "user " + id);
+                    insert.setInt(3, 18 + random.nextInt(60));
+                    insert.addBatch();
+                    if(id % 1000 == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into posts (id, post_text, dateTime, user_id) values (?, ?, ?, ?)")) {
+                long id = 0;
+                var now = LocalDateTime.now();
+                for (long userId = 1; userId <= users; userId++) {
+                    for (int i = 0; i < postsPerUser; i++) {
+                        insert.setLong(1, ++id);
+                        insert.setString(2, "post " + id);
+                        insert.setTimestamp(3, Timestamp.valueOf(now.minusMinutes(id)));
+                        insert.setLong(4, userId);
+                        insert.addBatch();
+                    }
+                    if(userId % 100 == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into followers (user_id, follower_id) values (?, ?)")) {
+                int followingPerUser = Math.max(1, edges / users);
+                Set<Long> followed = new HashSet<>();
+                for (long followerId = 1; followerId <= users; followerId++) {
+                    followed.clear();
+                    int attempts = 0;
+                    while (followed.size() < followingPerUser && attempts++ < followingPerUser * 10) {
+                        long userId = zipf.sample(random);
+                        if(userId != followerId && followed.add(userId)) {
+                            insert.setLong(1, userId);
+                            insert.setLong(2, followerId);
+                            insert.addBatch();
+                        }
+                    }
+                    insert.executeBatch();
+                }
+            }
+
+            connection.commit();
+        }
+    }
+
+    @Override
+    public void close() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    private static class Zipf {
+
+        private final double[] cumulative;
+
+        Zipf(int size, double exponent) {
+            cumulative = new double[size];
+            double sum = 0;
+            for (int rank = 1; rank <= size; rank++) {
+                sum += 1 / Math.pow(rank, exponent);
+                cumulative[rank - 1] = sum;
+            }
+            for (int i = 0; i < size; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        long sample(Random random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return (index >= 0 ? index : -index - 1) + 1L;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.lucasgomescosta.quarkussocial.benchmark;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.CreateUserRequest;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.PostResponse;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.ResponseError;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Response mapping done by the resources on every request, without the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    @Param({"20", "100", "1000"})
+    int posts;
+
+    private List<Post> list;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private CreateUserRequest invalidUser;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        User user = new User();
+        user.setId(1L);
+        user.setName("user 1");
+
+        var now = LocalDateTime.now();
+        list = new ArrayList<>(posts);
+        for (long id = 1; id <= posts; id++) {
+            Post post = new Post();
+            post.setId(id);
+            post.setText("post " + id);
+            post.setDateTime(now.minusMinutes(id));
+            post.setUser(user);
+            list.add(post);
+        }
+
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        invalidUser = new CreateUserRequest();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public List<PostResponse> postResponses() {
+        return list.stream()
+                .map(PostResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public ResponseError validationError() {
+        Set<ConstraintViolation<CreateUserRequest>> violations = validator.validate(invalidUser);
+        return ResponseError.createFromValidation(violations);
+    }
+}
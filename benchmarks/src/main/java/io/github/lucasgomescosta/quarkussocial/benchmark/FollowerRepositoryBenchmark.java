@@ -0,0 +1,117 @@
+package io.github.lucasgomescosta.quarkussocial.benchmark;
+
+import io.github.lucasgomescosta.quarkussocial.domain.graph.FollowGraphCache;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.FollowerRepository;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.FollowerResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follow checks and follower listing against the seeded graph. User ids are drawn from the same
+ * power law as the edges, so popular accounts are checked more often, as on the posts endpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FollowerRepositoryBenchmark {
+
+    private BenchmarkDatabase database;
+    private EntityManager entityManager;
+    private FollowerRepository repository;
+    private FollowGraphCache followGraph;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = new BenchmarkDatabase();
+        entityManager = database.createEntityManager();
+
+        repository = new FollowerRepository() {
+            @Override
+            public EntityManager getEntityManager() {
+                return entityManager;
+            }
+
+            // a single database, which is the primary
+            @Override
+            public List<Long> findFollowerIds(Long userId) {
+                return findFollowerIds(entityManager, userId);
+            }
+        };
+
+        followGraph = new FollowGraphCache();
+        set(followGraph, "repository", repository);
+        set(followGraph, "maxEdges", Long.MAX_VALUE);
+        set(followGraph, "expireAfterWrite", Duration.ofHours(1));
+        set(followGraph, "registry", new SimpleMeterRegistry());
+        set(repository, "followGraph", followGraph);
+        var init = FollowGraphCache.class.getDeclaredMethod("init");
+        init.setAccessible(true);
+        init.invoke(followGraph);
+
+        random = new Random(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        database.close();
+    }
+
+    @Benchmark
+    public boolean followsCached() {
+        return repository.follows(random.nextInt(database.users) + 1L, database.popularUser(random));
+    }
+
+    @Benchmark
+    public boolean followsUncached() {
+        followGraph.clear();
+        return repository.follows(random.nextInt(database.users) + 1L, database.popularUser(random));
+    }
+
+    @Benchmark
+    public List<Long> findFollowerIds() {
+        return repository.findFollowerIds(database.popularUser(random));
+    }
+
+    @Benchmark
+    public List<FollowerResponse> findFollowerResponsesByUser() {
+        return repository.findFollowerResponsesByUser(database.popularUser(random), null, 100);
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Class<?> type = target.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+}
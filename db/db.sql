@@ -1,14 +1,81 @@
 CREATE DATABASE quarkus-social;
 
+CREATE SEQUENCE users_seq START 1 INCREMENT 50;
+
 CREATE TABLE USERS (
-	id bigserial not null primary key,
+	id bigint not null primary key,
 	name varchar(100) not null,
-	age integer not null
-)
+	age integer not null,
+	followers_count bigint not null default 0,
+	following_count bigint not null default 0,
+	posts_count bigint not null default 0,
+	followers_version bigint not null default 0
+);
+
+CREATE SEQUENCE posts_seq START 1 INCREMENT 50;
 
+-- monthly partitions created ahead by PostPartitionMaintainer, see
+-- migrations/006_partition_posts.sql for archiving
 CREATE TABLE POSTS (
-    id bigserial not null primary key,
+    id bigint not null,
     post_text varchar(150) not null,
+    dateTime timestamp not null,
+    user_id bigint not null references USERS(id),
+    primary key (id, dateTime)
+) PARTITION BY RANGE (dateTime);
+
+CREATE INDEX idx_posts_user_datetime_id ON POSTS (user_id, dateTime DESC, id DESC);
+
+CREATE TABLE posts_default PARTITION OF POSTS DEFAULT;
+
+CREATE OR REPLACE FUNCTION create_posts_partition(month date) RETURNS void AS $$
+DECLARE
+    month_start date := date_trunc('month', month);
+    month_end date := date_trunc('month', month) + interval '1 month';
+    partition_name text := 'posts_y' || to_char(month_start, 'YYYY') || 'm' || to_char(month_start, 'MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE POSTS INCLUDING DEFAULTS)', partition_name);
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (dateTime >= %L AND dateTime < %L)',
+            partition_name, partition_name || '_range', month_start, month_end);
+    -- the attach fails while posts_default holds rows of the month, they are moved first; the
+    -- lock, which the attach takes anyway, keeps new ones from landing there in between
+    EXECUTE 'LOCK TABLE posts_default IN ACCESS EXCLUSIVE MODE';
+    EXECUTE format('WITH moved AS (DELETE FROM posts_default WHERE dateTime >= %L AND dateTime < %L RETURNING *) '
+            || 'INSERT INTO %I SELECT * FROM moved', month_start, month_end, partition_name);
+    EXECUTE format('ALTER TABLE POSTS ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+            partition_name, month_start, month_end);
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', partition_name, partition_name || '_range');
+END;
+$$ LANGUAGE plpgsql;
+
+-- no foreign keys: an edge across shards is stored on both, see migrations/008_cross_shard_follows.sql
+CREATE TABLE FOLLOWERS (
+    user_id bigint not null,
+    follower_id bigint not null,
+    primary key (user_id, follower_id)
+);
+
+CREATE INDEX idx_followers_follower_user ON FOLLOWERS (follower_id, user_id);
+
+CREATE TABLE TIMELINES (
+    user_id bigint not null references USERS(id),
+    post_id bigint not null,
     dateTime timestamp,
-    user_id bigint not null references USERS(id)
-);
\ No newline at end of file
+    primary key (user_id, post_id)
+);
+
+CREATE INDEX idx_timelines_user_datetime_post ON TIMELINES (user_id, dateTime DESC, post_id DESC);
+
+-- change events, see migrations/007_outbox.sql
+CREATE SEQUENCE outbox_seq START 1 INCREMENT 1;
+
+CREATE TABLE OUTBOX (
+    id bigint not null primary key,
+    user_id bigint not null,
+    event_type varchar(50) not null,
+    payload varchar(4000) not null,
+    created_at timestamp not null
+);
@@ -0,0 +1,23 @@
+-- Materialized home timelines (fan-out on write), see TimelineRepository. Each follower is
+-- backfilled with the latest posts of the users it follows, as a new follow would be
+-- (social.feed.backfill-size).
+
+CREATE TABLE TIMELINES (
+    user_id bigint not null references USERS(id),
+    post_id bigint not null references POSTS(id),
+    dateTime timestamp,
+    primary key (user_id, post_id)
+);
+
+CREATE INDEX idx_timelines_user_datetime_post ON TIMELINES (user_id, dateTime DESC, post_id DESC);
+
+INSERT INTO TIMELINES (user_id, post_id, dateTime)
+SELECT DISTINCT f.follower_id, p.id, p.dateTime
+FROM FOLLOWERS f
+JOIN LATERAL (
+    SELECT id, dateTime FROM POSTS
+    WHERE user_id = f.user_id
+    ORDER BY dateTime DESC NULLS LAST, id DESC
+    LIMIT 20
+) p ON true
+WHERE f.follower_id IS NOT NULL;
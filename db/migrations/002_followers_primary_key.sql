@@ -0,0 +1,29 @@
+-- Keys FOLLOWERS by (user_id, follower_id) instead of its generated id, so an edge exists once
+-- and FollowerRepository.follow can insert with ON CONFLICT DO NOTHING. Incomplete and duplicate
+-- edges are removed first, keeping the oldest of each pair.
+
+DELETE FROM FOLLOWERS WHERE user_id IS NULL OR follower_id IS NULL;
+
+DELETE FROM FOLLOWERS f USING FOLLOWERS d
+WHERE d.user_id = f.user_id AND d.follower_id = f.follower_id AND d.id < f.id;
+
+-- the foreign keys were named by whatever created the table: recreated below with the names
+-- db/db.sql gives them
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN SELECT conname FROM pg_constraint WHERE conrelid = 'followers'::regclass AND contype = 'f' LOOP
+        EXECUTE format('ALTER TABLE FOLLOWERS DROP CONSTRAINT %I', fk.conname);
+    END LOOP;
+END;
+$$;
+
+ALTER TABLE FOLLOWERS DROP COLUMN id;
+ALTER TABLE FOLLOWERS ALTER COLUMN user_id SET NOT NULL;
+ALTER TABLE FOLLOWERS ALTER COLUMN follower_id SET NOT NULL;
+ALTER TABLE FOLLOWERS ADD PRIMARY KEY (user_id, follower_id);
+ALTER TABLE FOLLOWERS ADD FOREIGN KEY (user_id) REFERENCES USERS(id);
+ALTER TABLE FOLLOWERS ADD FOREIGN KEY (follower_id) REFERENCES USERS(id);
+
+CREATE INDEX idx_followers_follower_user ON FOLLOWERS (follower_id, user_id);
@@ -0,0 +1,12 @@
+-- Switches USERS and POSTS from bigserial ids to the pooled-lo sequences used by the entities.
+-- The increment must match social.ids.allocation-size (Sequences.allocationSize()).
+
+CREATE SEQUENCE users_seq INCREMENT 50;
+SELECT setval('users_seq', (SELECT coalesce(max(id), 0) + 1 FROM USERS), false);
+ALTER TABLE USERS ALTER COLUMN id DROP DEFAULT;
+DROP SEQUENCE IF EXISTS users_id_seq;
+
+CREATE SEQUENCE posts_seq INCREMENT 50;
+SELECT setval('posts_seq', (SELECT coalesce(max(id), 0) + 1 FROM POSTS), false);
+ALTER TABLE POSTS ALTER COLUMN id DROP DEFAULT;
+DROP SEQUENCE IF EXISTS posts_id_seq;
@@ -0,0 +1,11 @@
+-- Maintained per-user counters, kept up to date by the application and repaired by
+-- UserCountersReconciler. Backfilled once here.
+
+ALTER TABLE USERS ADD COLUMN followers_count bigint not null default 0;
+ALTER TABLE USERS ADD COLUMN following_count bigint not null default 0;
+ALTER TABLE USERS ADD COLUMN posts_count bigint not null default 0;
+
+UPDATE USERS u SET
+    followers_count = (SELECT count(*) FROM FOLLOWERS f WHERE f.user_id = u.id),
+    following_count = (SELECT count(*) FROM FOLLOWERS f WHERE f.follower_id = u.id),
+    posts_count = (SELECT count(*) FROM POSTS p WHERE p.user_id = u.id);
@@ -0,0 +1,3 @@
+-- Bumped on every follow/unfollow of the user, used as the ETag of its follower listing.
+
+ALTER TABLE USERS ADD COLUMN followers_version bigint not null default 0;
@@ -0,0 +1,72 @@
+-- Range-partitions POSTS by month on dateTime. Post listings always carry a time range (see
+-- PostRepository), so the planner only visits the months it needs. Upcoming months are created
+-- ahead by PostPartitionMaintainer through create_posts_partition, rows outside every month
+-- land in posts_default.
+--
+-- The primary key of a partitioned table must include the partition key, so it becomes
+-- (id, dateTime) and TIMELINES loses its foreign key to POSTS: it is derived data, and the
+-- key would stop old months from being detached.
+--
+-- Archiving a month without locking the hot table (PostgreSQL 14+, outside a transaction):
+--   ALTER TABLE POSTS DETACH PARTITION posts_y2021m01 CONCURRENTLY;
+-- then dump and drop posts_y2021m01, and delete its TIMELINES rows.
+
+-- Creates the month of the given date, unless it exists. The month is built as a plain table
+-- and attached, which only takes a SHARE UPDATE EXCLUSIVE lock on POSTS; the matching check
+-- constraint spares the attach a scan of the new table.
+CREATE OR REPLACE FUNCTION create_posts_partition(month date) RETURNS void AS $$
+DECLARE
+    month_start date := date_trunc('month', month);
+    month_end date := date_trunc('month', month) + interval '1 month';
+    partition_name text := 'posts_y' || to_char(month_start, 'YYYY') || 'm' || to_char(month_start, 'MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE POSTS INCLUDING DEFAULTS)', partition_name);
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (dateTime >= %L AND dateTime < %L)',
+            partition_name, partition_name || '_range', month_start, month_end);
+    -- the attach fails while posts_default holds rows of the month, they are moved first; the
+    -- lock, which the attach takes anyway, keeps new ones from landing there in between
+    EXECUTE 'LOCK TABLE posts_default IN ACCESS EXCLUSIVE MODE';
+    EXECUTE format('WITH moved AS (DELETE FROM posts_default WHERE dateTime >= %L AND dateTime < %L RETURNING *) '
+            || 'INSERT INTO %I SELECT * FROM moved', month_start, month_end, partition_name);
+    EXECUTE format('ALTER TABLE POSTS ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+            partition_name, month_start, month_end);
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', partition_name, partition_name || '_range');
+END;
+$$ LANGUAGE plpgsql;
+
+ALTER TABLE TIMELINES DROP CONSTRAINT timelines_post_id_fkey;
+
+ALTER TABLE POSTS RENAME TO posts_unpartitioned;
+ALTER INDEX IF EXISTS idx_posts_user_datetime_id RENAME TO idx_posts_unpartitioned_user_datetime_id;
+
+CREATE TABLE POSTS (
+    id bigint not null,
+    post_text varchar(150) not null,
+    dateTime timestamp not null,
+    user_id bigint not null references USERS(id),
+    primary key (id, dateTime)
+) PARTITION BY RANGE (dateTime);
+
+CREATE INDEX idx_posts_user_datetime_id ON POSTS (user_id, dateTime DESC, id DESC);
+
+CREATE TABLE posts_default PARTITION OF POSTS DEFAULT;
+
+-- every month with posts, up to three months ahead
+SELECT create_posts_partition(month::date)
+FROM generate_series(
+        date_trunc('month', coalesce((SELECT min(dateTime) FROM posts_unpartitioned), now())),
+        date_trunc('month', now()) + interval '3 months',
+        interval '1 month') AS month;
+
+INSERT INTO POSTS (id, post_text, dateTime, user_id)
+SELECT id, post_text, coalesce(dateTime, now()), user_id FROM posts_unpartitioned;
+
+-- timelines copy the dateTime their post is looked up by
+UPDATE TIMELINES t SET dateTime = p.dateTime
+FROM POSTS p
+WHERE p.id = t.post_id AND t.dateTime IS DISTINCT FROM p.dateTime;
+
+DROP TABLE posts_unpartitioned;
@@ -0,0 +1,14 @@
+-- Change events of posts and follows, written in the transaction of the change and relayed to
+-- a sink by OutboxRelay, which deletes them once published.
+-- Not pooled: ids are taken one at a time after the user row is locked, so the events of a
+-- user are numbered in commit order.
+
+CREATE SEQUENCE outbox_seq START 1 INCREMENT 1;
+
+CREATE TABLE OUTBOX (
+    id bigint not null primary key,
+    user_id bigint not null,
+    event_type varchar(50) not null,
+    payload varchar(4000) not null,
+    created_at timestamp not null
+);
@@ -0,0 +1,10 @@
+-- Each shard keeps the follow edges of its users: an edge between users of two shards is stored
+-- on both, and on each of them one of its users is missing. FOLLOWERS loses its foreign keys to
+-- USERS; deleting a user no longer fails on its edges, they are left behind and skipped by the
+-- follower listings.
+--
+-- The constraints are named by 002_followers_primary_key.sql; a database created from a db/db.sql
+-- that already lacked them has nothing to drop.
+
+ALTER TABLE FOLLOWERS DROP CONSTRAINT IF EXISTS followers_user_id_fkey;
+ALTER TABLE FOLLOWERS DROP CONSTRAINT IF EXISTS followers_follower_id_fkey;
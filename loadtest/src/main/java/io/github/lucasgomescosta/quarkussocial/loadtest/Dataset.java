@@ -0,0 +1,117 @@
+package io.github.lucasgomescosta.quarkussocial.loadtest;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Social graph created through the REST API before the run. Follow targets are drawn from a
+ * power law, so popularity is skewed the way it is in production; the same seed always produces
+ * the same graph.
+ */
+class Dataset {
+
+    private final Options options;
+    private final SocialClient client;
+    private final Zipf popularity;
+
+    private long[] userIds;
+    private final List<long[]> edges = new ArrayList<>();
+
+    Dataset(Options options, SocialClient client) {
+        this.options = options;
+        this.client = client;
+        this.popularity = new Zipf(options.users, options.zipfExponent);
+    }
+
+    void seed() {
+        var random = new Random(options.seed);
+
+        userIds = new long[options.users];
+        runAll(options.users, i -> client.createUser("user " + i, 18 + random.nextInt(60))
+                .thenAccept(id -> userIds[i] = id));
+
+        for (int follower = 0; follower < options.users; follower++) {
+            Set<Integer> followed = new HashSet<>();
+            int attempts = 0;
+            while (followed.size() < options.followsPerUser && attempts++ < options.followsPerUser * 10) {
+                int user = popularity.sample(random);
+                if(user != follower && followed.add(user)) {
+                    edges.add(new long[] {userIds[user], userIds[follower]});
+                }
+            }
+        }
+        runAll(edges.size(), i -> expectSuccess(() -> client.followerUser(edges.get(i)[0], edges.get(i)[1])));
+
+        // 201, or 202 when the server ingests posts asynchronously
+        runAll(options.users * options.postsPerUser, i -> expectSuccess(
+                () -> client.savePost(userIds[i / options.postsPerUser], "seed post " + i)));
+    }
+
+    int userCount() {
+        return userIds.length;
+    }
+
+    int edgeCount() {
+        synchronized (edges) {
+            return edges.size();
+        }
+    }
+
+    long randomUser(Random random) {
+        return userIds[random.nextInt(userIds.length)];
+    }
+
+    long popularUser(Random random) {
+        return userIds[popularity.sample(random)];
+    }
+
+    /**
+     * A random existing follow edge as {userId, followerId}, so reads of the posts endpoint are
+     * allowed and skewed towards popular authors like the edges themselves.
+     */
+    long[] randomEdge(Random random) {
+        synchronized (edges) {
+            return edges.get(random.nextInt(edges.size()));
+        }
+    }
+
+    void addEdge(long userId, long followerId) {
+        synchronized (edges) {
+            edges.add(new long[] {userId, followerId});
+        }
+    }
+
+    private void runAll(int count, IndexedCall call) {
+        var permits = new Semaphore(options.concurrency);
+        var calls = new CompletableFuture<?>[count];
+        for (int i = 0; i < count; i++) {
+            permits.acquireUninterruptibly();
+            int index = i;
+            calls[i] = call.apply(index).whenComplete((result, error) -> permits.release());
+        }
+        CompletableFuture.allOf(calls).join();
+    }
+
+    /**
+     * Completes exceptionally unless the call ends with a 2xx, 503s being retried.
+     */
+    private CompletableFuture<Void> expectSuccess(Supplier<CompletableFuture<HttpResponse<String>>> call) {
+        return client.retryingUnavailable(call).thenAccept(response -> {
+            if(!SocialClient.isSuccess(response)) {
+                throw new IllegalStateException(response.request().method() + " " + response.uri() +
+                        " returned " + response.statusCode());
+            }
+        });
+    }
+
+    private interface IndexedCall {
+        CompletableFuture<?> apply(int index);
+    }
+}
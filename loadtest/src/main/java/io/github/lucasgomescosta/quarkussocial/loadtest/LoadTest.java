@@ -0,0 +1,184 @@
+package io.github.lucasgomescosta.quarkussocial.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seeds a social graph through the REST API, then replays a weighted mix of calls from
+ * {@code --concurrency} closed-loop clients and prints latency percentiles and throughput per
+ * operation as JSON.
+ * <p>
+ * The target only needs the HTTP API, so the same run can be pointed at the blocking
+ * application or the reactive variant with {@code --base-url}. Given {@code --compare-url} too,
+ * the data set is seeded once through the base url and the mix replayed against each application
+ * in turn, which must share the database.
+ */
+public class LoadTest {
+
+    private final Options options;
+    private final ExecutorService executor;
+    private final Dataset dataset;
+    private final Operation[] weightedOperations;
+    private final AtomicLong postSequence = new AtomicLong();
+
+    LoadTest(Options options, ExecutorService executor) {
+        this.options = options;
+        this.executor = executor;
+        this.dataset = new Dataset(options, new SocialClient(options.baseUrl, executor));
+        this.weightedOperations = options.mix.entrySet()
+                .stream()
+                .flatMap(weight -> Collections.nCopies(weight.getValue(), weight.getKey()).stream())
+                .toArray(Operation[]::new);
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = Options.parse(args);
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+        try {
+            var report = new LoadTest(options, executor).run();
+
+            var mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            if(options.output == null) {
+                System.out.println(mapper.writeValueAsString(report));
+            } else {
+                mapper.writeValue(new File(options.output), report);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    Map<String, Object> run() throws InterruptedException {
+        log("seeding %d users, %d follows and %d posts per user at %s",
+                options.users, options.followsPerUser, options.postsPerUser, options.baseUrl);
+        long seedStart = System.nanoTime();
+        dataset.seed();
+        double seedSeconds = (System.nanoTime() - seedStart) / 1e9;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("users", dataset.userCount());
+        report.put("follows", dataset.edgeCount());
+        report.put("seedSeconds", Math.round(seedSeconds * 10) / 10.0);
+        report.put("concurrency", options.concurrency);
+        report.put("mix", options.mix);
+
+        if(options.compareUrl == null) {
+            report.putAll(measure(options.baseUrl));
+            return report;
+        }
+
+        // in turn, so the two never compete for the database; the second sees the first one's writes
+        List<Map<String, Object>> runs = new ArrayList<>();
+        runs.add(measure(options.baseUrl));
+        runs.add(measure(options.compareUrl));
+        report.put("runs", runs);
+        return report;
+    }
+
+    private Map<String, Object> measure(String baseUrl) throws InterruptedException {
+        var client = new SocialClient(baseUrl, executor);
+
+        log("warming up %s for %ds", baseUrl, options.warmupSeconds);
+        replay(client, options.warmupSeconds);
+
+        log("measuring %s for %ds with %d clients", baseUrl, options.durationSeconds, options.concurrency);
+        long start = System.nanoTime();
+        Map<Operation, LatencyRecorder> recorders = replay(client, options.durationSeconds);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("baseUrl", baseUrl);
+        run.put("durationSeconds", Math.round(seconds * 10) / 10.0);
+
+        var total = new LatencyRecorder();
+        Map<String, Object> operations = new LinkedHashMap<>();
+        recorders.forEach((operation, recorder) -> {
+            operations.put(operation.name(), recorder.summary(seconds));
+            total.merge(recorder);
+        });
+        run.put("total", total.summary(seconds));
+        run.put("operations", operations);
+        return run;
+    }
+
+    private Map<Operation, LatencyRecorder> replay(SocialClient client, int seconds) throws InterruptedException {
+        Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+        for (Operation operation : options.mix.keySet()) {
+            recorders.put(operation, new LatencyRecorder());
+        }
+
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        var finished = new CountDownLatch(options.concurrency);
+        for (int i = 0; i < options.concurrency; i++) {
+            next(client, recorders, deadline, finished);
+        }
+        finished.await();
+        return recorders;
+    }
+
+    /**
+     * One client: issues a call, records it on completion and issues the next until the deadline.
+     */
+    private void next(SocialClient client, Map<Operation, LatencyRecorder> recorders, long deadline, CountDownLatch finished) {
+        if(System.nanoTime() >= deadline) {
+            finished.countDown();
+            return;
+        }
+
+        var random = ThreadLocalRandom.current();
+        Operation operation = weightedOperations[random.nextInt(weightedOperations.length)];
+        long start = System.nanoTime();
+        call(client, operation, random).whenComplete((response, error) -> {
+            boolean failed = error != null || response.statusCode() >= 400;
+            recorders.get(operation).record(System.nanoTime() - start, failed);
+            next(client, recorders, deadline, finished);
+        });
+    }
+
+    private CompletableFuture<HttpResponse<String>> call(SocialClient client, Operation operation, Random random) {
+        switch (operation) {
+            case listPosts:
+                long[] edge = dataset.randomEdge(random);
+                return client.listPosts(edge[0], edge[1]);
+            case listFollowers:
+                return client.listFollowers(dataset.popularUser(random));
+            case followerUser:
+                long userId = dataset.popularUser(random);
+                long randomFollower;
+                do {
+                    randomFollower = dataset.randomUser(random);
+                } while (randomFollower == userId);
+                long followerId = randomFollower;
+                return client.followerUser(userId, followerId).thenApply(response -> {
+                    if(response.statusCode() == 204) {
+                        dataset.addEdge(userId, followerId);
+                    }
+                    return response;
+                });
+            case savePost:
+                return client.savePost(dataset.randomUser(random), "load test post " + postSequence.incrementAndGet());
+            default:
+                throw new IllegalArgumentException(operation.name());
+        }
+    }
+
+    private static void log(String format, Object... args) {
+        System.err.println("[loadtest] " + String.format(format, args));
+    }
+}
@@ -0,0 +1,11 @@
+package io.github.lucasgomescosta.quarkussocial.loadtest;
+
+/**
+ * The API calls replayed by the load test, named after the resource methods serving them.
+ */
+enum Operation {
+    listPosts,
+    listFollowers,
+    followerUser,
+    savePost
+}
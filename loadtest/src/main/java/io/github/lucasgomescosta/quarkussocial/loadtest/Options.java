@@ -0,0 +1,60 @@
+package io.github.lucasgomescosta.quarkussocial.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options, given as {@code --name=value}.
+ */
+class Options {
+
+    String baseUrl = "http://localhost:8080";
+    // a second application on the same database, measured after the first with the same data set
+    String compareUrl;
+    int users = 1000;
+    int postsPerUser = 5;
+    int followsPerUser = 20;
+    double zipfExponent = 1.0;
+    int concurrency = 64;
+    int warmupSeconds = 10;
+    int durationSeconds = 60;
+    long seed = 42;
+    String output;
+    Map<Operation, Integer> mix = parseMix("listPosts=60,listFollowers=20,followerUser=10,savePost=10");
+
+    static Options parse(String[] args) {
+        var options = new Options();
+        for (String arg : args) {
+            if(!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "base-url": options.baseUrl = value.replaceAll("/+$", ""); break;
+                case "compare-url": options.compareUrl = value.replaceAll("/+$", ""); break;
+                case "users": options.users = Integer.parseInt(value); break;
+                case "posts-per-user": options.postsPerUser = Integer.parseInt(value); break;
+                case "follows-per-user": options.followsPerUser = Integer.parseInt(value); break;
+                case "zipf-exponent": options.zipfExponent = Double.parseDouble(value); break;
+                case "concurrency": options.concurrency = Integer.parseInt(value); break;
+                case "warmup": options.warmupSeconds = Integer.parseInt(value); break;
+                case "duration": options.durationSeconds = Integer.parseInt(value); break;
+                case "seed": options.seed = Long.parseLong(value); break;
+                case "output": options.output = value; break;
+                case "mix": options.mix = parseMix(value); break;
+                default: throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        return options;
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] weight = entry.split("=");
+            mix.put(Operation.valueOf(weight[0].trim()), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+}
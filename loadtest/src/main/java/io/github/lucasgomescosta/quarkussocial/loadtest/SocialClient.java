@@ -0,0 +1,141 @@
+package io.github.lucasgomescosta.quarkussocial.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous client for the endpoints exercised by the load test.
+ */
+class SocialClient {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+    private static final int MAX_ATTEMPTS = 10;
+
+    private final HttpClient http;
+    private final Executor executor;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String baseUrl;
+
+    SocialClient(String baseUrl, Executor executor) {
+        this.baseUrl = baseUrl;
+        this.executor = executor;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(TIMEOUT)
+                .executor(executor)
+                .build();
+    }
+
+    CompletableFuture<Long> createUser(String name, int age) {
+        return retryingUnavailable(() -> send(json("/users", "POST", Map.of("name", name, "age", age))))
+                .thenApply(response -> {
+                    if(!isSuccess(response)) {
+                        throw new IllegalStateException("POST /users returned " + response.statusCode());
+                    }
+                    try {
+                        return mapper.readTree(response.body()).get("id").asLong();
+                    } catch (Exception e) {
+                        throw new IllegalStateException("Unexpected POST /users body " + response.body(), e);
+                    }
+                });
+    }
+
+    CompletableFuture<HttpResponse<String>> followerUser(long userId, long followerId) {
+        return send(json("/users/" + userId + "/followers", "PUT", Map.of("followerId", followerId)));
+    }
+
+    CompletableFuture<HttpResponse<String>> savePost(long userId, String text) {
+        return send(json("/users/" + userId + "/posts", "POST", Map.of("text", text)));
+    }
+
+    CompletableFuture<HttpResponse<String>> listPosts(long userId, long followerId) {
+        return send(request("/users/" + userId + "/posts")
+                .header("followerId", Long.toString(followerId))
+                .GET()
+                .build());
+    }
+
+    CompletableFuture<HttpResponse<String>> listFollowers(long userId) {
+        return send(request("/users/" + userId + "/followers").GET().build());
+    }
+
+    /**
+     * Sends {@code call} again while the server answers 503, after the Retry-After it sends (one
+     * second when absent), at most {@value #MAX_ATTEMPTS} times. For seeding, where every request
+     * has to go through; the measured operations are sent once.
+     */
+    CompletableFuture<HttpResponse<String>> retryingUnavailable(Supplier<CompletableFuture<HttpResponse<String>>> call) {
+        return retryingUnavailable(call, 1);
+    }
+
+    static boolean isSuccess(HttpResponse<?> response) {
+        return response.statusCode() >= 200 && response.statusCode() < 300;
+    }
+
+    private CompletableFuture<HttpResponse<String>> retryingUnavailable(
+            Supplier<CompletableFuture<HttpResponse<String>>> call, int attempt) {
+        return call.get().thenCompose(response -> {
+            if(response.statusCode() != 503 || attempt >= MAX_ATTEMPTS) {
+                return CompletableFuture.completedFuture(response);
+            }
+            Executor delayed = CompletableFuture.delayedExecutor(
+                    retryAfter(response).toMillis(), TimeUnit.MILLISECONDS, executor);
+            return CompletableFuture.runAsync(() -> { }, delayed)
+                    .thenCompose(ignored -> retryingUnavailable(call, attempt + 1));
+        });
+    }
+
+    /**
+     * Retry-After as delay-seconds or an HTTP date.
+     */
+    private static Duration retryAfter(HttpResponse<?> response) {
+        return response.headers().firstValue("Retry-After").map(String::trim).map(value -> {
+            try {
+                return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+            } catch (NumberFormatException notSeconds) {
+                try {
+                    Duration until = Duration.between(ZonedDateTime.now(),
+                            ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+                    return until.isNegative() ? Duration.ZERO : until;
+                } catch (DateTimeParseException notDate) {
+                    return DEFAULT_RETRY_AFTER;
+                }
+            }
+        }).orElse(DEFAULT_RETRY_AFTER);
+    }
+
+    private HttpRequest json(String path, String method, Object body) {
+        try {
+            return request(path)
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(TIMEOUT)
+                .header("Accept", "application/json");
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.lucasgomescosta.quarkussocial.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Power-law distribution over the ranks 0..size-1: rank 0 is drawn most often, so a few users
+ * get most of the follows and reads.
+ */
+class Zipf {
+
+    private final double[] cumulative;
+
+    Zipf(int size, double exponent) {
+        cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            sum += 1 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    int sample(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+}
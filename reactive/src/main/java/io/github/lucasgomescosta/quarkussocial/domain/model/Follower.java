@@ -0,0 +1,31 @@
+package io.github.lucasgomescosta.quarkussocial.domain.model;
+
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+/**
+ * A follow edge. The pair (user, follower) is the primary key, so an edge can only exist once;
+ * the reverse index serves "who does this user follow" lookups. There are no foreign keys: the
+ * edge of a cross-shard follow is stored on both shards, see db/migrations/008_cross_shard_follows.sql.
+ */
+@Entity
+@Immutable
+@Table(name = "followers", indexes = {
+        @Index(name = "idx_followers_follower_user", columnList = "follower_id, user_id")
+})
+@IdClass(FollowerId.class)
+@Data
+public class Follower {
+
+    @Id
+    @ManyToOne
+    @JoinColumn(name = "user_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private User user;
+
+    @Id
+    @ManyToOne
+    @JoinColumn(name = "follower_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private User follower;
+}
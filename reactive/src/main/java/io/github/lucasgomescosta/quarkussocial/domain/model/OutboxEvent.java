@@ -0,0 +1,47 @@
+package io.github.lucasgomescosta.quarkussocial.domain.model;
+
+import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A change to publish, same table and event types as the blocking application, whose relay
+ * publishes them, see OutboxRepository.
+ */
+@Entity
+@Table(name = "outbox")
+@Data
+public class OutboxEvent {
+
+    public static final String POST_CREATED = "post.created";
+    public static final String USER_FOLLOWED = "user.followed";
+    public static final String USER_UNFOLLOWED = "user.unfollowed";
+
+    // not pooled: each id is taken while the user row is locked, numbering a user's events in
+    // commit order, see db/migrations/007_outbox.sql
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @GenericGenerator(name = "outbox_seq", strategy = Sequences.GENERATOR, parameters = {
+            @Parameter(name = "sequence_name", value = "outbox_seq"),
+            @Parameter(name = "increment_size", value = "1"),
+            @Parameter(name = "optimizer", value = "none")
+    })
+    private Long id;
+
+    // the user whose events are ordered: the author of a post, the followed user of a follow
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String type;
+
+    // JSON
+    @Column(name = "payload", nullable = false, length = 4000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
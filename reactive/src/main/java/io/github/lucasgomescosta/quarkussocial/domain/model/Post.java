@@ -0,0 +1,36 @@
+package io.github.lucasgomescosta.quarkussocial.domain.model;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_user_datetime_id", columnList = "user_id, dateTime DESC, id DESC")
+})
+@Data
+public class Post {
+
+    // from posts_seq, see PostRepository
+    @Id
+    private Long id;
+
+    @Column(name = "post_text")
+    private String text;
+
+    // partition key of posts, see db/migrations/006_partition_posts.sql
+    @Column(name = "dateTime", nullable = false)
+    private LocalDateTime dateTime;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @PrePersist
+    public void prePersist() {
+        if(dateTime == null) {
+            setDateTime(LocalDateTime.now());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.lucasgomescosta.quarkussocial.domain.model;
+
+/**
+ * Identifier generation shared by the entities, same sequences as the blocking application: one
+ * {@code nextval} of users_seq or posts_seq reserves {@link #ALLOCATION_SIZE} ids, the values from
+ * the one returned, see IdAllocator.
+ * <p>
+ * The sequences in db/db.sql are created with this increment, which must also be the
+ * {@code social.ids.allocation-size} of the blocking application; change them together.
+ */
+public final class Sequences {
+
+    public static final String ALLOCATION_SIZE = "50";
+    public static final String GENERATOR = "org.hibernate.id.enhanced.SequenceStyleGenerator";
+
+    private Sequences() {
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.lucasgomescosta.quarkussocial.domain.model;
+
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One post pushed into the home timeline of one user (fan-out on write).
+ * The post dateTime is copied so a feed page is a single range scan on the index.
+ */
+@Entity
+@Immutable
+@Table(name = "timelines", indexes = {
+        @Index(name = "idx_timelines_user_datetime_post", columnList = "user_id, dateTime DESC, post_id DESC")
+})
+@IdClass(TimelineEntryId.class)
+@Data
+public class TimelineEntry {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "post_id")
+    private Long postId;
+
+    @Column(name = "dateTime")
+    private LocalDateTime dateTime;
+}
@@ -0,0 +1,36 @@
+package io.github.lucasgomescosta.quarkussocial.domain.model;
+
+import lombok.Data;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "users")
+@Data
+public class User{
+
+    // from users_seq, see UserRepository
+    @Id
+    private Long id;
+
+    @Column
+    private String name;
+
+    @Column
+    private Integer age;
+
+    // maintained with relative updates by UserRepository, never written back from the entity
+    @Column(name = "followers_count", nullable = false, updatable = false)
+    private Long followersCount = 0L;
+
+    @Column(name = "following_count", nullable = false, updatable = false)
+    private Long followingCount = 0L;
+
+    @Column(name = "posts_count", nullable = false, updatable = false)
+    private Long postsCount = 0L;
+
+    // bumped on every follow and unfollow of this user, versions its follower listing
+    @Column(name = "followers_version", nullable = false, updatable = false)
+    private Long followersVersion = 0L;
+
+}
@@ -0,0 +1,117 @@
+package io.github.lucasgomescosta.quarkussocial.domain.repository;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Follower;
+import io.github.lucasgomescosta.quarkussocial.domain.model.FollowerId;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.FollowerResponse;
+import io.quarkus.hibernate.reactive.panache.PanacheRepositoryBase;
+import io.quarkus.panache.common.Parameters;
+import io.smallrye.mutiny.Uni;
+import org.hibernate.reactive.mutiny.Mutiny;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.List;
+import java.util.UUID;
+
+@ApplicationScoped
+public class FollowerRepository implements PanacheRepositoryBase<Follower, FollowerId> {
+
+    // the channel and payload the blocking FollowGraphListener applies to its follow graph cache
+    private static final String FOLLOW_GRAPH_CHANNEL = "follow_graph";
+    private static final String INSTANCE = UUID.randomUUID().toString();
+
+    @Inject
+    UserRepository userRepository;
+
+    @Inject
+    OutboxRepository outboxRepository;
+
+    public Uni<Boolean> follows(Long followerId, Long userId) {
+        var params = Parameters
+                .with("userId", userId)
+                .and("followerId", followerId);
+
+        return count("follower.id = :followerId and user.id = :userId", params)
+                .map(count -> count > 0);
+    }
+
+    /**
+     * Keyset page of the followers of {@code userId} in follower id order, starting after
+     * {@code afterFollowerId} (from the first when null), see the blocking FollowerRepository.
+     */
+    public Uni<List<FollowerResponse>> findFollowerResponsesByUser(Long userId, Long afterFollowerId, int limit) {
+        String jpql = "select new " + FollowerResponse.class.getName() + "(f.follower.id, u.name) " +
+                "from Follower f join User u on u.id = f.follower.id where f.user.id = :userId " +
+                (afterFollowerId == null ? "" : "and f.follower.id > :after ") +
+                "order by f.follower.id";
+
+        return getSession().chain(session -> {
+            Mutiny.Query<FollowerResponse> query = session
+                    .createQuery(jpql, FollowerResponse.class)
+                    .setParameter("userId", userId)
+                    .setMaxResults(limit);
+            if(afterFollowerId != null) {
+                query.setParameter("after", afterFollowerId);
+            }
+            return query.getResultList();
+        });
+    }
+
+    /**
+     * Creates the follow edge with a single idempotent statement and counts it, like the blocking
+     * FollowerRepository.
+     *
+     * @return true when the edge was created, false when it already existed
+     */
+    public Uni<Boolean> follow(Long userId, Long followerId) {
+        return getSession()
+                .chain(session -> session
+                        .createNativeQuery("insert into followers (user_id, follower_id) values (:userId, :followerId) " +
+                                "on conflict do nothing")
+                        .setParameter("userId", userId)
+                        .setParameter("followerId", followerId)
+                        .executeUpdate())
+                .chain(inserted -> inserted == 0
+                        ? Uni.createFrom().item(false)
+                        : edgeChanged(userId, followerId, true).replaceWith(true));
+    }
+
+    /**
+     * @return false when there was no such edge
+     */
+    public Uni<Boolean> deleteByFollowerAndUser(Long followerId, Long userId) {
+        var params = Parameters
+                .with("userId", userId)
+                .and("followerId", followerId)
+                .map();
+
+        return delete("follower.id = :followerId and user.id = :userId ", params)
+                .chain(deleted -> deleted == 0
+                        ? Uni.createFrom().item(false)
+                        : edgeChanged(userId, followerId, false).replaceWith(true));
+    }
+
+    /**
+     * Counts the change, appends its event and notifies the blocking instances, in the
+     * transaction of the change.
+     */
+    private Uni<Void> edgeChanged(Long userId, Long followerId, boolean follows) {
+        return userRepository.updateFollowCounters(userId, followerId, follows ? 1 : -1)
+                .call(() -> outboxRepository.followChanged(userId, followerId, follows))
+                .call(() -> getSession().chain(session -> session
+                        .createNativeQuery("select cast(pg_notify(:channel, :payload) as varchar)")
+                        .setParameter("channel", FOLLOW_GRAPH_CHANNEL)
+                        .setParameter("payload", INSTANCE + ":" + userId + ":" + followerId + ":" + (follows ? 1 : 0))
+                        .getSingleResult()));
+    }
+
+    public Uni<List<Long>> findFollowedWithMoreFollowersThan(Long followerId, long followersCount) {
+        return getSession()
+                .chain(session -> session
+                        .createQuery("select f.user.id from Follower f where f.follower.id = :followerId " +
+                                "and f.user.followersCount > :followersCount", Long.class)
+                        .setParameter("followerId", followerId)
+                        .setParameter("followersCount", followersCount)
+                        .getResultList());
+    }
+}
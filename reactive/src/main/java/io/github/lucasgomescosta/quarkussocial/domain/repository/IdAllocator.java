@@ -0,0 +1,48 @@
+package io.github.lucasgomescosta.quarkussocial.domain.repository;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Sequences;
+import io.smallrye.mutiny.Uni;
+import org.hibernate.reactive.mutiny.Mutiny;
+
+/**
+ * Hands out ids from a database sequence the way the pooled-lo optimizer of the blocking
+ * entities does: the value {@code nextval} returns and the next {@link Sequences#ALLOCATION_SIZE}
+ * minus one.
+ * <p>
+ * Hibernate Reactive's own generator lets the sessions that find a block used up wait for the one
+ * refilling it, and resumes them on that session's event loop, which fails them with HR000069.
+ * Here every such session takes the next block itself, in its own session; the rest of a block
+ * replaced by a concurrent refill is skipped.
+ */
+class IdAllocator {
+
+    private final String sequence;
+    private final int allocationSize = Integer.parseInt(Sequences.ALLOCATION_SIZE);
+
+    private long next;
+    private long limit;
+
+    IdAllocator(String sequence) {
+        this.sequence = sequence;
+    }
+
+    Uni<Long> next(Mutiny.Session session) {
+        Long id = take();
+        if(id != null) {
+            return Uni.createFrom().item(id);
+        }
+        return session.createNativeQuery("select nextval('" + sequence + "')")
+                .getSingleResult()
+                .map(value -> refill(((Number) value).longValue()));
+    }
+
+    private synchronized Long take() {
+        return next < limit ? next++ : null;
+    }
+
+    private synchronized long refill(long first) {
+        next = first + 1;
+        limit = first + allocationSize;
+        return first;
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.lucasgomescosta.quarkussocial.domain.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.lucasgomescosta.quarkussocial.domain.model.OutboxEvent;
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.quarkus.hibernate.reactive.panache.PanacheRepository;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.time.LocalDateTime;
+
+/**
+ * Appends the change events of posts and follows in the transaction of the change, same events
+ * and order as the blocking OutboxRepository; the blocking application's relay publishes them.
+ */
+@ApplicationScoped
+public class OutboxRepository implements PanacheRepository<OutboxEvent> {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "social.outbox.enabled", defaultValue = "false")
+    boolean enabled;
+
+    public Uni<Void> postCreated(Post post) {
+        return append(OutboxEvent.POST_CREATED, post.getUser().getId(), objectMapper.createObjectNode()
+                .put("id", post.getId())
+                .put("userId", post.getUser().getId())
+                .put("text", post.getText())
+                .put("dateTime", post.getDateTime().toString()));
+    }
+
+    public Uni<Void> followChanged(Long userId, Long followerId, boolean follows) {
+        return append(follows ? OutboxEvent.USER_FOLLOWED : OutboxEvent.USER_UNFOLLOWED, userId, objectMapper.createObjectNode()
+                .put("userId", userId)
+                .put("followerId", followerId));
+    }
+
+    private Uni<Void> append(String type, Long userId, ObjectNode payload) {
+        if(!enabled) {
+            return Uni.createFrom().voidItem();
+        }
+        OutboxEvent event = new OutboxEvent();
+        event.setType(type);
+        event.setUserId(userId);
+        event.setPayload(payload.toString());
+        event.setCreatedAt(LocalDateTime.now());
+        return persist(event).replaceWithVoid();
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.lucasgomescosta.quarkussocial.domain.repository;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.quarkus.hibernate.reactive.panache.PanacheQuery;
+import io.quarkus.hibernate.reactive.panache.PanacheRepository;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@ApplicationScoped
+public class PostRepository implements PanacheRepository<Post> {
+
+    private static final Sort NEWEST_FIRST = Sort
+            .by("dateTime", Sort.Direction.Descending)
+            .and("id", Sort.Direction.Descending);
+
+    private final IdAllocator ids = new IdAllocator("posts_seq");
+
+    @Inject
+    UserRepository userRepository;
+
+    @Inject
+    OutboxRepository outboxRepository;
+
+    @ConfigProperty(name = "social.posts.recent-window-days", defaultValue = "90")
+    int recentWindowDays;
+
+    /**
+     * Persists a new post and counts it on its author, like the blocking PostRepository. The post
+     * is flushed so it can be fanned out by a native statement afterwards.
+     */
+    public Uni<Post> create(Post post) {
+        return getSession()
+                .chain(ids::next)
+                .chain(id -> {
+                    post.setId(id);
+                    return persistAndFlush(post);
+                })
+                .call(() -> userRepository.updatePostsCount(post.getUser().getId(), 1))
+                .call(() -> outboxRepository.postCreated(post));
+    }
+
+    /**
+     * Keyset page of a user's posts, newest first, see the blocking PostRepository: the recent
+     * months of the partitioned posts first, the older ones only for a short page.
+     */
+    public Uni<List<Post>> findPageByUser(User user, LocalDateTime beforeDateTime, Long beforeId, int limit) {
+        boolean seek = beforeDateTime != null && beforeId != null;
+        LocalDateTime since = (seek ? beforeDateTime : LocalDateTime.now()).minusDays(recentWindowDays);
+
+        PanacheQuery<Post> recent;
+        if(!seek) {
+            recent = find("user = :user and dateTime >= :since", NEWEST_FIRST,
+                    Parameters.with("user", user).and("since", since));
+        } else {
+            var params = Parameters
+                    .with("user", user)
+                    .and("since", since)
+                    .and("dateTime", beforeDateTime)
+                    .and("id", beforeId);
+
+            recent = find("user = :user and dateTime >= :since and dateTime <= :dateTime " +
+                            "and (dateTime < :dateTime or (dateTime = :dateTime and id < :id))",
+                    NEWEST_FIRST, params);
+        }
+
+        return recent.range(0, limit - 1).list().chain(recentPosts -> {
+            if(recentPosts.size() >= limit) {
+                return Uni.createFrom().item(recentPosts);
+            }
+            return find("user = :user and dateTime < :since", NEWEST_FIRST,
+                            Parameters.with("user", user).and("since", since))
+                    .range(0, limit - recentPosts.size() - 1)
+                    .list()
+                    .map(olderPosts -> {
+                        List<Post> page = new ArrayList<>(recentPosts);
+                        page.addAll(olderPosts);
+                        return page;
+                    });
+        });
+    }
+}
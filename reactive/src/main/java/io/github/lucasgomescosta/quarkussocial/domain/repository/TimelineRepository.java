@@ -0,0 +1,213 @@
+package io.github.lucasgomescosta.quarkussocial.domain.repository;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.domain.model.TimelineEntry;
+import io.github.lucasgomescosta.quarkussocial.domain.model.TimelineEntryId;
+import io.quarkus.hibernate.reactive.panache.PanacheRepositoryBase;
+import io.quarkus.panache.common.Parameters;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.reactive.mutiny.Mutiny;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Fan-out-on-write home timelines, same tables and rules as the blocking TimelineRepository.
+ */
+@ApplicationScoped
+public class TimelineRepository implements PanacheRepositoryBase<TimelineEntry, TimelineEntryId> {
+
+    private static final Comparator<Post> NEWEST_FIRST = Comparator
+            .comparing(Post::getDateTime)
+            .thenComparing(Post::getId)
+            .reversed();
+
+    @Inject
+    FollowerRepository followerRepository;
+
+    @Inject
+    UserRepository userRepository;
+
+    @ConfigProperty(name = "social.feed.fan-out.max-followers", defaultValue = "10000")
+    long fanOutMaxFollowers;
+
+    @ConfigProperty(name = "social.feed.backfill-size", defaultValue = "20")
+    int backfillSize;
+
+    @ConfigProperty(name = "social.posts.recent-window-days", defaultValue = "90")
+    int recentWindowDays;
+
+    /**
+     * Pushes a freshly persisted post into the timeline of every follower of its author, unless
+     * the author is served by fan-out on read.
+     */
+    public Uni<Void> fanOut(Post post) {
+        Long authorId = post.getUser().getId();
+        return isFanOutOnRead(authorId).chain(fanOutOnRead -> fanOutOnRead
+                ? Uni.createFrom().voidItem()
+                : executeUpdate("insert into timelines (user_id, post_id, dateTime) " +
+                        "select f.follower_id, :postId, :dateTime from followers f where f.user_id = :authorId",
+                        Parameters.with("postId", post.getId())
+                                .and("dateTime", post.getDateTime())
+                                .and("authorId", authorId)));
+    }
+
+    /**
+     * Copies the latest posts of a newly followed author into the follower's timeline.
+     */
+    public Uni<Void> backfill(Long followerId, Long authorId) {
+        return isFanOutOnRead(authorId).chain(fanOutOnRead -> fanOutOnRead
+                ? Uni.createFrom().voidItem()
+                : executeUpdate("insert into timelines (user_id, post_id, dateTime) " +
+                        "select :followerId, p.id, p.dateTime from posts p where p.user_id = :authorId " +
+                        "order by p.dateTime desc, p.id desc limit :limit",
+                        Parameters.with("followerId", followerId)
+                                .and("authorId", authorId)
+                                .and("limit", backfillSize)));
+    }
+
+    /**
+     * Called once a follower of {@code authorId} is gone: an author back at
+     * {@code social.feed.fan-out.max-followers} gets its latest posts copied into the timelines
+     * that miss them, see the blocking TimelineRepository.
+     */
+    public Uni<Void> unfollowed(Long authorId) {
+        return userRepository.findFollowersCount(authorId).chain(followersCount -> followersCount != fanOutMaxFollowers
+                ? Uni.createFrom().voidItem()
+                : executeUpdate("insert into timelines (user_id, post_id, dateTime) " +
+                        "select f.follower_id, p.id, p.dateTime from followers f cross join " +
+                        "(select id, dateTime from posts where user_id = :authorId " +
+                        "order by dateTime desc, id desc limit :limit) p " +
+                        "where f.user_id = :authorId and not exists " +
+                        "(select 1 from timelines t where t.user_id = f.follower_id and t.post_id = p.id)",
+                        Parameters.with("authorId", authorId).and("limit", backfillSize)));
+    }
+
+    public Uni<Void> deleteByFollowerAndAuthor(Long followerId, Long authorId) {
+        var params = Parameters
+                .with("followerId", followerId)
+                .and("authorId", authorId)
+                .map();
+
+        return delete("userId = :followerId and postId in (select p.id from Post p where p.user.id = :authorId)", params)
+                .replaceWithVoid();
+    }
+
+    private Uni<Void> executeUpdate(String sql, Parameters parameters) {
+        return getSession()
+                .chain(session -> {
+                    Mutiny.Query<Object> query = session.createNativeQuery(sql);
+                    parameters.map().forEach(query::setParameter);
+                    return query.executeUpdate();
+                })
+                .replaceWithVoid();
+    }
+
+    /**
+     * Same rule as {@link FollowerRepository#findFollowedWithMoreFollowersThan} on the read side.
+     */
+    private Uni<Boolean> isFanOutOnRead(Long authorId) {
+        return userRepository.findFollowersCount(authorId).map(followersCount -> followersCount > fanOutMaxFollowers);
+    }
+
+    /**
+     * A page of the home feed of {@code userId}, newest first: the materialized timeline merged
+     * with the posts of followed authors that are served by fan-out on read, each post once.
+     */
+    public Uni<List<Post>> findFeedPage(Long userId, LocalDateTime beforeDateTime, Long beforeId, int limit) {
+        boolean seek = beforeDateTime != null && beforeId != null;
+
+        Uni<List<Post>> timeline = getSession().chain(session -> {
+            Mutiny.Query<Post> query = session
+                    // the copied dateTime lets each post be looked up in its own partition of posts
+                    .createQuery("select p from TimelineEntry t, Post p join fetch p.user " +
+                            "where p.id = t.postId and p.dateTime = t.dateTime and t.userId = :userId" +
+                            (seek ? " and (t.dateTime < :dateTime or (t.dateTime = :dateTime and t.postId < :id))" : "") +
+                            " order by t.dateTime desc, t.postId desc", Post.class)
+                    .setParameter("userId", userId)
+                    .setMaxResults(limit);
+            if(seek) {
+                query.setParameter("dateTime", beforeDateTime).setParameter("id", beforeId);
+            }
+            return query.getResultList();
+        });
+
+        return timeline.chain(feed -> followerRepository
+                .findFollowedWithMoreFollowersThan(userId, fanOutMaxFollowers)
+                .chain(authors -> {
+                    if(authors.isEmpty()) {
+                        return Uni.createFrom().item(feed);
+                    }
+                    return findAuthorsPosts(authors, beforeDateTime, beforeId, limit).map(authorsPosts -> {
+                        // an author that went above the threshold still has its older posts in the timelines
+                        List<Post> merged = new ArrayList<>(feed);
+                        merged.addAll(authorsPosts);
+                        merged.sort(NEWEST_FIRST);
+                        Map<Long, Post> distinct = new LinkedHashMap<>();
+                        for (Post post : merged) {
+                            distinct.putIfAbsent(post.getId(), post);
+                        }
+                        return distinct.values().stream().limit(limit).collect(Collectors.toList());
+                    });
+                }));
+    }
+
+    /**
+     * Up to {@code limit} posts of {@code authors} newest first, before the position when given:
+     * the recent months first, the older ones only for a short page.
+     */
+    private Uni<List<Post>> findAuthorsPosts(List<Long> authors, LocalDateTime beforeDateTime, Long beforeId, int limit) {
+        boolean seek = beforeDateTime != null && beforeId != null;
+        LocalDateTime since = (seek ? beforeDateTime : LocalDateTime.now()).minusDays(recentWindowDays);
+
+        return findAuthorsPage(authors, since, seek ? beforeDateTime : null, beforeId, limit).chain(recent -> {
+            if(recent.size() >= limit) {
+                return Uni.createFrom().item(recent);
+            }
+            return findAuthorsPage(authors, null, since, null, limit - recent.size()).map(older -> {
+                List<Post> posts = new ArrayList<>(recent);
+                posts.addAll(older);
+                return posts;
+            });
+        });
+    }
+
+    /**
+     * Posts of {@code authors} newest first, from {@code since} (inclusive) up to {@code until}
+     * (exclusive, or before post {@code untilId} at the same dateTime when given). Either bound
+     * may be null.
+     */
+    private Uni<List<Post>> findAuthorsPage(List<Long> authors, LocalDateTime since,
+                                            LocalDateTime until, Long untilId, int limit) {
+        boolean seek = until != null && untilId != null;
+        return getSession().chain(session -> {
+            Mutiny.Query<Post> query = session
+                    .createQuery("select p from Post p join fetch p.user " +
+                            "where p.user.id in :authors" +
+                            (since != null ? " and p.dateTime >= :since" : "") +
+                            (seek ? " and p.dateTime <= :dateTime and (p.dateTime < :dateTime or (p.dateTime = :dateTime and p.id < :id))"
+                                    : until != null ? " and p.dateTime < :dateTime" : "") +
+                            " order by p.dateTime desc, p.id desc", Post.class)
+                    .setParameter("authors", authors)
+                    .setMaxResults(limit);
+            if(since != null) {
+                query.setParameter("since", since);
+            }
+            if(until != null) {
+                query.setParameter("dateTime", until);
+            }
+            if(seek) {
+                query.setParameter("id", untilId);
+            }
+            return query.getResultList();
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.lucasgomescosta.quarkussocial.domain.repository;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.quarkus.hibernate.reactive.panache.PanacheQuery;
+import io.quarkus.hibernate.reactive.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import io.smallrye.mutiny.Uni;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.util.List;
+
+@ApplicationScoped
+public class UserRepository implements PanacheRepository<User> {
+
+    private static final Sort BY_ID = Sort.by("id");
+
+    private final IdAllocator ids = new IdAllocator("users_seq");
+
+    public Uni<User> create(User user) {
+        return getSession()
+                .chain(ids::next)
+                .chain(id -> {
+                    user.setId(id);
+                    return persist(user);
+                });
+    }
+
+    /**
+     * Keyset page of users in id order, starting after {@code afterId} (from the first when null).
+     */
+    public Uni<List<User>> findPage(Long afterId, int limit) {
+        PanacheQuery<User> query = afterId == null
+                ? findAll(BY_ID)
+                : find("id > ?1", BY_ID, afterId);
+        return query.range(0, limit - 1).list();
+    }
+
+    /**
+     * The followers count of a user as it is in the database, not as loaded in the session.
+     */
+    public Uni<Long> findFollowersCount(Long userId) {
+        return getSession()
+                .chain(session -> session
+                        .createQuery("select u.followersCount from User u where u.id = :id", Long.class)
+                        .setParameter("id", userId)
+                        .getResultList())
+                .map(counts -> counts.isEmpty() ? 0L : counts.get(0));
+    }
+
+    /**
+     * Adds {@code delta} to the followers count of {@code userId} and to the following count of
+     * {@code followerId}, and bumps the followers version of {@code userId}, in one statement like
+     * the blocking UserRepository.
+     */
+    public Uni<Void> updateFollowCounters(Long userId, Long followerId, long delta) {
+        return getSession()
+                .chain(session -> session
+                        .createNativeQuery("update users set " +
+                                "followers_count = followers_count + case when id = :userId then :delta else 0 end, " +
+                                "following_count = following_count + case when id = :followerId then :delta else 0 end, " +
+                                "followers_version = followers_version + case when id = :userId then 1 else 0 end " +
+                                "where id in (:userId, :followerId)")
+                        .setParameter("userId", userId)
+                        .setParameter("followerId", followerId)
+                        .setParameter("delta", delta)
+                        .executeUpdate())
+                .replaceWithVoid();
+    }
+
+    public Uni<Void> updatePostsCount(Long userId, long delta) {
+        return getSession()
+                .chain(session -> session
+                        .createNativeQuery("update users set posts_count = posts_count + :delta where id = :userId")
+                        .setParameter("userId", userId)
+                        .setParameter("delta", delta)
+                        .executeUpdate())
+                .replaceWithVoid();
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.TimelineRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.FeedPageResponse;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.FeedPostResponse;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.PostCursor;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Path("/users/{userId}/feed")
+@Produces(MediaType.APPLICATION_JSON)
+public class FeedResource {
+
+    private UserRepository userRepository;
+    private TimelineRepository timelineRepository;
+    private int defaultPageSize;
+    private int maxPageSize;
+
+    @Inject
+    public FeedResource(
+            UserRepository userRepository,
+            TimelineRepository timelineRepository,
+            @ConfigProperty(name = "social.posts.page-size.default", defaultValue = "20") int defaultPageSize,
+            @ConfigProperty(name = "social.posts.page-size.max", defaultValue = "100") int maxPageSize) {
+        this.userRepository = userRepository;
+        this.timelineRepository = timelineRepository;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @GET
+    public Uni<Response> feed(
+            @PathParam("userId") Long userId,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("before") String before) {
+
+        if(limit != null && limit < 1) {
+            return Uni.createFrom().item(Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity("limit must be greater than zero")
+                    .build());
+        }
+        int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        PostCursor cursor = null;
+        if(before != null) {
+            try {
+                cursor = PostCursor.decode(before);
+            } catch (IllegalArgumentException e) {
+                return Uni.createFrom().item(Response
+                        .status(Response.Status.BAD_REQUEST)
+                        .entity("Invalid cursor")
+                        .build());
+            }
+        }
+        PostCursor position = cursor;
+
+        return userRepository.findById(userId).chain(user -> {
+            if(user == null) {
+                return Uni.createFrom().item(Response.status(Response.Status.NOT_FOUND).build());
+            }
+
+            return timelineRepository.findFeedPage(
+                            userId,
+                            position == null ? null : position.getDateTime(),
+                            position == null ? null : position.getId(),
+                            pageSize + 1)
+                    .map(list -> {
+                        boolean hasNext = list.size() > pageSize;
+                        List<Post> content = hasNext ? list.subList(0, pageSize) : list;
+
+                        var page = new FeedPageResponse();
+                        page.setContent(content.stream().map(FeedPostResponse::fromEntity).collect(Collectors.toList()));
+                        if(hasNext) {
+                            page.setNext(PostCursor.fromEntity(content.get(content.size() - 1)).encode());
+                        }
+                        return Response.ok(page).build();
+                    });
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.github.lucasgomescosta.quarkussocial.domain.repository.FollowerRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.TimelineRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.FollowerRequest;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.FollowersPerUserResponse;
+import io.quarkus.hibernate.reactive.panache.common.runtime.ReactiveTransactional;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+@Path("/users/{userId}/followers")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class FollowerResource {
+
+    private FollowerRepository repository;
+    private UserRepository userRepository;
+    private TimelineRepository timelineRepository;
+    private int defaultPageSize;
+    private int maxPageSize;
+
+    @Inject
+    public FollowerResource(
+            FollowerRepository repository,
+            UserRepository userRepository,
+            TimelineRepository timelineRepository,
+            @ConfigProperty(name = "social.followers.page-size.default", defaultValue = "100") int defaultPageSize,
+            @ConfigProperty(name = "social.followers.page-size.max", defaultValue = "1000") int maxPageSize) {
+        this.repository = repository;
+        this.userRepository = userRepository;
+        this.timelineRepository = timelineRepository;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @PUT
+    @ReactiveTransactional
+    public Uni<Response> followerUser(
+            @PathParam("userId") Long userId, FollowerRequest followerRequest) {
+
+        if(userId.equals(followerRequest.getFollowerId())) {
+            return Uni.createFrom().item(Response.status(Response.Status.CONFLICT)
+                    .entity("You can't follow yourself")
+                    .build());
+        }
+
+        Long followerId = followerRequest.getFollowerId();
+        return userRepository.findById(userId)
+                .chain(user -> user == null
+                        ? Uni.createFrom().nullItem()
+                        : userRepository.findById(followerId))
+                .chain(follower -> {
+                    if(follower == null) {
+                        return Uni.createFrom().item(Response.status(Response.Status.NOT_FOUND).build());
+                    }
+                    return repository.follow(userId, followerId)
+                            .chain(followed -> followed
+                                    ? timelineRepository.backfill(followerId, userId)
+                                    : Uni.createFrom().voidItem())
+                            .map(ignored -> Response.status(Response.Status.NO_CONTENT).build());
+                });
+    }
+
+    @GET
+    public Uni<Response> listFollowers(
+            @PathParam("userId") Long userId,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("after") Long after,
+            @QueryParam("countOnly") boolean countOnly) {
+
+        if(limit != null && limit < 1) {
+            return Uni.createFrom().item(Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity("limit must be greater than zero")
+                    .build());
+        }
+        int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        return userRepository.findById(userId).chain(user -> {
+            if(user == null) {
+                return Uni.createFrom().item(Response.status(Response.Status.NOT_FOUND).build());
+            }
+
+            FollowersPerUserResponse userResponse = new FollowersPerUserResponse();
+            userResponse.setFollowersCount(user.getFollowersCount());
+            if(countOnly) {
+                return Uni.createFrom().item(Response.ok(userResponse).build());
+            }
+
+            // one extra row tells whether there is a next page
+            return repository.findFollowerResponsesByUser(userId, after, pageSize + 1).map(followerList -> {
+                if(followerList.size() > pageSize) {
+                    followerList = followerList.subList(0, pageSize);
+                    userResponse.setNext(followerList.get(pageSize - 1).getId());
+                }
+                userResponse.setContent(followerList);
+                return Response.ok(userResponse).build();
+            });
+        });
+    }
+
+    @DELETE
+    @ReactiveTransactional
+    public Uni<Response> unFollowerUser(
+            @PathParam("userId") Long userId,
+            @QueryParam("followerId") Long followerId) {
+
+        return userRepository.findById(userId).chain(user -> {
+            if(user == null) {
+                return Uni.createFrom().item(Response.status(Response.Status.NOT_FOUND).build());
+            }
+
+            return repository.deleteByFollowerAndUser(followerId, userId)
+                    .chain(deleted -> deleted
+                            ? timelineRepository.deleteByFollowerAndAuthor(followerId, userId)
+                                    .chain(() -> timelineRepository.unfollowed(userId))
+                            : Uni.createFrom().voidItem())
+                    .map(ignored -> Response.status(Response.Status.NO_CONTENT).build());
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.FollowerRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.PostRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.TimelineRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.CreatePostRequest;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.PostCursor;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.PostResponse;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.PostsPageResponse;
+import io.quarkus.hibernate.reactive.panache.common.runtime.ReactiveTransactional;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Path("/users/{userId}/posts")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class PostResource {
+
+    private UserRepository userRepository;
+    private PostRepository repository;
+    private FollowerRepository followerRepository;
+    private TimelineRepository timelineRepository;
+    private int defaultPageSize;
+    private int maxPageSize;
+
+    @Inject
+    public PostResource(
+            UserRepository userRepository,
+            PostRepository repository,
+            FollowerRepository followerRepository,
+            TimelineRepository timelineRepository,
+            @ConfigProperty(name = "social.posts.page-size.default", defaultValue = "20") int defaultPageSize,
+            @ConfigProperty(name = "social.posts.page-size.max", defaultValue = "100") int maxPageSize) {
+        this.userRepository = userRepository;
+        this.repository = repository;
+        this.followerRepository = followerRepository;
+        this.timelineRepository = timelineRepository;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @POST
+    @ReactiveTransactional
+    public Uni<Response> savePost(@PathParam("userId") Long userId, CreatePostRequest postRequest) {
+        return userRepository.findById(userId)
+                .chain(user -> {
+                    if(user == null) {
+                        return Uni.createFrom().item(Response.status(Response.Status.NOT_FOUND).build());
+                    }
+
+                    Post post = new Post();
+                    post.setText(postRequest.getText());
+                    post.setUser(user);
+
+                    return repository.create(post)
+                            .chain(timelineRepository::fanOut)
+                            .map(ignored -> Response.status(Response.Status.CREATED).build());
+                });
+    }
+
+    @GET
+    public Uni<Response> listPosts(
+            @PathParam("userId") Long userId,
+            @HeaderParam("followerId") Long followerId,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("before") String before) {
+
+        if(limit != null && limit < 1) {
+            return badRequest("limit must be greater than zero");
+        }
+        int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        PostCursor cursor = null;
+        if(before != null) {
+            try {
+                cursor = PostCursor.decode(before);
+            } catch (IllegalArgumentException e) {
+                return badRequest("Invalid cursor");
+            }
+        }
+        PostCursor position = cursor;
+
+        return userRepository.findById(userId).chain(user -> {
+            if(user == null) {
+                return Uni.createFrom().item(Response.status(Response.Status.NOT_FOUND).build());
+            }
+
+            if(followerId == null){
+                return badRequest("You forgot the header followerId");
+            }
+
+            return userRepository.findById(followerId).chain(follower -> {
+                if(follower == null){
+                    return badRequest("Inexistent followerId");
+                }
+
+                return followerRepository.follows(followerId, userId).chain(follows -> {
+                    if(!follows){
+                        return Uni.createFrom().item(Response.status(Response.Status.FORBIDDEN)
+                                .entity("You can't see these posts")
+                                .build());
+                    }
+                    return listPage(user, position, pageSize);
+                });
+            });
+        });
+    }
+
+    private Uni<Response> listPage(User user, PostCursor cursor, int pageSize) {
+        // one extra row tells whether there is a next page without a count query
+        return repository.findPageByUser(
+                        user,
+                        cursor == null ? null : cursor.getDateTime(),
+                        cursor == null ? null : cursor.getId(),
+                        pageSize + 1)
+                .map(list -> {
+                    boolean hasNext = list.size() > pageSize;
+                    List<Post> content = hasNext ? list.subList(0, pageSize) : list;
+
+                    var page = new PostsPageResponse();
+                    page.setContent(content.stream()
+                            .map(PostResponse::fromEntity)
+                            .collect(Collectors.toList()));
+                    if(hasNext) {
+                        page.setNext(PostCursor.fromEntity(content.get(content.size() - 1)).encode());
+                    }
+                    return Response.ok(page).build();
+                });
+    }
+
+    private static Uni<Response> badRequest(String message) {
+        return Uni.createFrom().item(Response
+                .status(Response.Status.BAD_REQUEST)
+                .entity(message)
+                .build());
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.CreateUserRequest;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.ResponseError;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.UserResponse;
+import io.quarkus.hibernate.reactive.panache.common.runtime.ReactiveTransactional;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.inject.Inject;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Path("/users")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class UserResource {
+
+    private UserRepository userRepository;
+    private Validator validator;
+    private int defaultPageSize;
+    private int maxPageSize;
+
+    @Inject
+    public UserResource(
+            UserRepository userRepository,
+            Validator validator,
+            @ConfigProperty(name = "social.users.page-size.default", defaultValue = "100") int defaultPageSize,
+            @ConfigProperty(name = "social.users.page-size.max", defaultValue = "1000") int maxPageSize) {
+        this.userRepository = userRepository;
+        this.validator = validator;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @POST
+    @ReactiveTransactional
+    public Uni<Response> createUser(CreateUserRequest userRequest) {
+
+        Set<ConstraintViolation<CreateUserRequest>> violations = validator.validate(userRequest);
+
+        if(!violations.isEmpty()) {
+            return Uni.createFrom().item(ResponseError.createFromValidation(violations)
+                    .withStatusCode(ResponseError.UNPROCESSABLE_ENTITY_STATUS));
+        }
+
+        User user = new User();
+        user.setName(userRequest.getName());
+        user.setAge(userRequest.getAge());
+
+        return userRepository.create(user)
+                .map(persisted -> Response
+                        .status(Response.Status.CREATED.getStatusCode())
+                        .entity(UserResponse.fromEntity(persisted))
+                        .build());
+    }
+
+    @GET
+    public Uni<Response> listAllUsers(
+            @QueryParam("limit") Integer limit,
+            @QueryParam("after") Long after,
+            @Context UriInfo uriInfo) {
+        if(limit != null && limit < 1) {
+            return Uni.createFrom().item(Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity("limit must be greater than zero")
+                    .build());
+        }
+        int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        // one extra row tells whether there is a next page
+        return userRepository.findPage(after, pageSize + 1).map(users -> {
+            if(users.size() <= pageSize) {
+                return Response.ok(toResponses(users)).build();
+            }
+
+            List<User> page = users.subList(0, pageSize);
+            var next = uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam("after", page.get(pageSize - 1).getId())
+                    .replaceQueryParam("limit", pageSize)
+                    .build();
+            return Response.ok(toResponses(page)).link(next, "next").build();
+        });
+    }
+
+    private static List<UserResponse> toResponses(List<User> users) {
+        return users.stream().map(UserResponse::fromEntity).collect(Collectors.toList());
+    }
+
+    @DELETE
+    @Path("{id}")
+    @ReactiveTransactional
+    public Uni<Response> deleteUser(@PathParam("id") Long id) {
+        return userRepository.deleteById(id)
+                .map(deleted -> deleted
+                        ? Response.noContent().build()
+                        : Response.status(Response.Status.NOT_FOUND).build());
+    }
+
+    @PUT
+    @Path("{id}")
+    @ReactiveTransactional
+    public Uni<Response> updateUser(@PathParam("id") Long id, CreateUserRequest userData) {
+        return userRepository.findById(id)
+                .map(user -> {
+                    if(user == null) {
+                        return Response.status(Response.Status.NOT_FOUND).build();
+                    }
+                    user.setName(userData.getName());
+                    user.setAge(userData.getAge());
+                    return Response.noContent().build();
+                });
+    }
+}
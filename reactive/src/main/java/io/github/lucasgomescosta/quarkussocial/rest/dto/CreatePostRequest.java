@@ -0,0 +1,8 @@
+package io.github.lucasgomescosta.quarkussocial.rest.dto;
+
+import lombok.Data;
+
+@Data
+public class CreatePostRequest {
+    private String text;
+}
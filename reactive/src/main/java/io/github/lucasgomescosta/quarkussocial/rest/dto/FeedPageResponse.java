@@ -0,0 +1,12 @@
+package io.github.lucasgomescosta.quarkussocial.rest.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class FeedPageResponse {
+
+    private List<FeedPostResponse> content;
+    private String next;
+}
@@ -0,0 +1,23 @@
+package io.github.lucasgomescosta.quarkussocial.rest.dto;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class FeedPostResponse {
+    private Long userId;
+    private String userName;
+    private String text;
+    private LocalDateTime dateTime;
+
+    public static FeedPostResponse fromEntity(Post post) {
+        FeedPostResponse response = new FeedPostResponse();
+        response.setUserId(post.getUser().getId());
+        response.setUserName(post.getUser().getName());
+        response.setText(post.getText());
+        response.setDateTime(post.getDateTime());
+        return response;
+    }
+}
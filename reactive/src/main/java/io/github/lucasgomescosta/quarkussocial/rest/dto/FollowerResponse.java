@@ -0,0 +1,17 @@
+package io.github.lucasgomescosta.quarkussocial.rest.dto;
+
+import lombok.Data;
+
+@Data
+public class FollowerResponse {
+    private Long id;
+    private String name;
+
+    public FollowerResponse() {
+    }
+
+    public FollowerResponse(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
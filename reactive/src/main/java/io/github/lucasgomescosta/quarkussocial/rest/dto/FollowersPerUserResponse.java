@@ -0,0 +1,13 @@
+package io.github.lucasgomescosta.quarkussocial.rest.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class FollowersPerUserResponse {
+
+    private Long followersCount;
+    private List<FollowerResponse> content;
+    private Long next;
+}
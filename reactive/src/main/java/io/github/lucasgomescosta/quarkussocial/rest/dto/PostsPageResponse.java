@@ -0,0 +1,12 @@
+package io.github.lucasgomescosta.quarkussocial.rest.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class PostsPageResponse {
+
+    private List<PostResponse> content;
+    private String next;
+}
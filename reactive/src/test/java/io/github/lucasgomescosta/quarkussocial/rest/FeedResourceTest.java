@@ -0,0 +1,59 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+
+@QuarkusTest
+class FeedResourceTest {
+
+    @Test
+    @DisplayName("should return 404 when user doesn't exist")
+    public void feedUserNotFoundTest() {
+        given()
+                .when()
+                    .get("/users/{userId}/feed", 999)
+                .then()
+                    .statusCode(404);
+    }
+
+    @Test
+    @DisplayName("should merge the timeline with fan-out-on-read authors, each post once")
+    public void feedTest() {
+        String next = given()
+                    .queryParam("limit", 3)
+                .when()
+                    .get("/users/{userId}/feed", 2)
+                .then()
+                    .statusCode(200)
+                    .body("content.text", Matchers.contains("Popular post", "Newest post", "Older post"))
+                    .body("content[0].userName", Matchers.is("popular"))
+                    .body("next", Matchers.notNullValue())
+                .extract()
+                    .path("next");
+
+        given()
+                    .queryParam("limit", 3)
+                    .queryParam("before", next)
+                .when()
+                    .get("/users/{userId}/feed", 2)
+                .then()
+                    .statusCode(200)
+                    .body("content.text", Matchers.contains("Oldest post"))
+                    .body("next", Matchers.nullValue());
+    }
+
+    @Test
+    @DisplayName("should return an empty feed for a user that follows no one")
+    public void emptyFeedTest() {
+        given()
+                .when()
+                    .get("/users/{userId}/feed", 3)
+                .then()
+                    .statusCode(200)
+                    .body("content", Matchers.empty());
+    }
+}
@@ -0,0 +1,162 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+
+@QuarkusTest
+class FollowerResourceTest {
+
+    @Test
+    @DisplayName("should return 404 when user doesn't exist")
+    public void listFollowersUserNotFoundTest() {
+        given()
+                .when()
+                    .get("/users/{userId}/followers", 999)
+                .then()
+                    .statusCode(404);
+    }
+
+    @Test
+    @DisplayName("should list followers a page at a time, counted from the user's counter")
+    public void listFollowersTest() {
+        given()
+                    .queryParam("limit", 1)
+                .when()
+                    .get("/users/{userId}/followers", 1)
+                .then()
+                    .statusCode(200)
+                    .body("followersCount", Matchers.is(2))
+                    .body("content.name", Matchers.contains("cicrano"))
+                    .body("next", Matchers.is(2));
+
+        given()
+                    .queryParam("limit", 1)
+                    .queryParam("after", 2)
+                .when()
+                    .get("/users/{userId}/followers", 1)
+                .then()
+                    .statusCode(200)
+                    .body("content.name", Matchers.contains("beltrano"))
+                    .body("next", Matchers.nullValue());
+    }
+
+    @Test
+    @DisplayName("should return only the count")
+    public void countOnlyTest() {
+        given()
+                    .queryParam("countOnly", true)
+                .when()
+                    .get("/users/{userId}/followers", 3)
+                .then()
+                    .statusCode(200)
+                    .body("followersCount", Matchers.is(5))
+                    .body("content", Matchers.nullValue());
+    }
+
+    @Test
+    @DisplayName("should follow once, backfill the timeline and count it, then unfollow")
+    public void followAndUnfollowTest() {
+        int user = createUser("seguido");
+        int follower = createUser("seguidor");
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body("{\"text\": \"Before the follow\"}")
+                .when()
+                    .post("/users/{userId}/posts", user)
+                .then()
+                    .statusCode(201);
+
+        for (int i = 0; i < 2; i++) {
+            given()
+                        .contentType(ContentType.JSON)
+                        .body("{\"followerId\": " + follower + "}")
+                    .when()
+                        .put("/users/{userId}/followers", user)
+                    .then()
+                        .statusCode(204);
+        }
+
+        given()
+                .when()
+                    .get("/users/{userId}/followers", user)
+                .then()
+                    .statusCode(200)
+                    .body("followersCount", Matchers.is(1))
+                    .body("content.id", Matchers.contains(follower));
+
+        given()
+                .when()
+                    .get("/users/{userId}/feed", follower)
+                .then()
+                    .statusCode(200)
+                    .body("content.text", Matchers.contains("Before the follow"));
+
+        given()
+                    .queryParam("followerId", follower)
+                .when()
+                    .delete("/users/{userId}/followers", user)
+                .then()
+                    .statusCode(204);
+
+        given()
+                .when()
+                    .get("/users/{userId}/followers", user)
+                .then()
+                    .statusCode(200)
+                    .body("followersCount", Matchers.is(0))
+                    .body("content", Matchers.empty());
+
+        given()
+                .when()
+                    .get("/users/{userId}/feed", follower)
+                .then()
+                    .statusCode(200)
+                    .body("content", Matchers.empty());
+    }
+
+    @Test
+    @DisplayName("should not follow yourself or an user that doesn't exist")
+    public void followConflictAndNotFoundTest() {
+        given()
+                    .contentType(ContentType.JSON)
+                    .body("{\"followerId\": 1}")
+                .when()
+                    .put("/users/{userId}/followers", 1)
+                .then()
+                    .statusCode(409);
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body("{\"followerId\": 999}")
+                .when()
+                    .put("/users/{userId}/followers", 1)
+                .then()
+                    .statusCode(404);
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body("{\"followerId\": 2}")
+                .when()
+                    .put("/users/{userId}/followers", 999)
+                .then()
+                    .statusCode(404);
+    }
+
+    private static int createUser(String name) {
+        return given()
+                    .contentType(ContentType.JSON)
+                    .body("{\"name\": \"" + name + "\", \"age\": 30}")
+                .when()
+                    .post("/users")
+                .then()
+                    .statusCode(201)
+                .extract()
+                    .path("id");
+    }
+}
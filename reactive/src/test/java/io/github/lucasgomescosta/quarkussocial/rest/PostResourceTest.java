@@ -0,0 +1,141 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+
+@QuarkusTest
+class PostResourceTest {
+
+    @Test
+    @DisplayName("should page through the posts, past the recent window")
+    public void listPostsTest() {
+        String next = given()
+                    .header("followerId", 2)
+                    .queryParam("limit", 2)
+                .when()
+                    .get("/users/{userId}/posts", 1)
+                .then()
+                    .statusCode(200)
+                    .body("content.text", Matchers.contains("Newest post", "Older post"))
+                    .body("next", Matchers.notNullValue())
+                .extract()
+                    .path("next");
+
+        given()
+                    .header("followerId", 2)
+                    .queryParam("limit", 2)
+                    .queryParam("before", next)
+                .when()
+                    .get("/users/{userId}/posts", 1)
+                .then()
+                    .statusCode(200)
+                    .body("content.text", Matchers.contains("Oldest post"))
+                    .body("next", Matchers.nullValue());
+    }
+
+    @Test
+    @DisplayName("should return 403 when the follower doesn't follow the user")
+    public void listPostsNotAFollowerTest() {
+        given()
+                    .header("followerId", 4)
+                .when()
+                    .get("/users/{userId}/posts", 3)
+                .then()
+                    .statusCode(403);
+    }
+
+    @Test
+    @DisplayName("should return 400 when the followerId header is missing or the cursor invalid")
+    public void listPostsBadRequestTest() {
+        given()
+                .when()
+                    .get("/users/{userId}/posts", 1)
+                .then()
+                    .statusCode(400);
+
+        given()
+                    .header("followerId", 2)
+                    .queryParam("before", "not-a-cursor")
+                .when()
+                    .get("/users/{userId}/posts", 1)
+                .then()
+                    .statusCode(400);
+    }
+
+    @Test
+    @DisplayName("should create a post, count it and show it to the followers")
+    public void createPostTest() {
+        int author = createUser("autor");
+        int follower = createUser("leitor");
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body("{\"followerId\": " + follower + "}")
+                .when()
+                    .put("/users/{userId}/followers", author)
+                .then()
+                    .statusCode(204);
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body("{\"text\": \"New post\"}")
+                .when()
+                    .post("/users/{userId}/posts", author)
+                .then()
+                    .statusCode(201);
+
+        given()
+                    .header("followerId", follower)
+                .when()
+                    .get("/users/{userId}/posts", author)
+                .then()
+                    .statusCode(200)
+                    .body("content.text", Matchers.contains("New post"));
+
+        given()
+                    .queryParam("limit", 1)
+                    .queryParam("after", author - 1)
+                .when()
+                    .get("/users")
+                .then()
+                    .statusCode(200)
+                    .body("[0].postsCount", Matchers.is(1));
+
+        // fanned out on write
+        given()
+                .when()
+                    .get("/users/{userId}/feed", follower)
+                .then()
+                    .statusCode(200)
+                    .body("content.text", Matchers.contains("New post"));
+    }
+
+    @Test
+    @DisplayName("should return 404 when creating a post for an user that doesn't exist")
+    public void createPostUserNotFoundTest() {
+        given()
+                    .contentType(ContentType.JSON)
+                    .body("{\"text\": \"New post\"}")
+                .when()
+                    .post("/users/{userId}/posts", 999)
+                .then()
+                    .statusCode(404);
+    }
+
+    private static int createUser(String name) {
+        return given()
+                    .contentType(ContentType.JSON)
+                    .body("{\"name\": \"" + name + "\", \"age\": 30}")
+                .when()
+                    .post("/users")
+                .then()
+                    .statusCode(201)
+                .extract()
+                    .path("id");
+    }
+}
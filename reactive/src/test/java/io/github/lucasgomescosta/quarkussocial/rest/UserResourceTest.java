@@ -0,0 +1,135 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+
+@QuarkusTest
+class UserResourceTest {
+
+    @Test
+    @DisplayName("should list users with their counters, a page at a time")
+    public void listUsersTest() {
+        given()
+                    .queryParam("limit", 2)
+                .when()
+                    .get("/users")
+                .then()
+                    .statusCode(200)
+                    .header("Link", Matchers.containsString("after=2"))
+                    .body("size()", Matchers.is(2))
+                    .body("[0].name", Matchers.is("fulano"))
+                    .body("[0].followersCount", Matchers.is(2))
+                    .body("[0].postsCount", Matchers.is(3));
+
+        given()
+                    .queryParam("limit", 2)
+                    .queryParam("after", 2)
+                .when()
+                    .get("/users")
+                .then()
+                    .statusCode(200)
+                    .body("id", Matchers.contains(3, 4));
+
+        // the users the other tests create come after the seeded ones
+        given()
+                    .queryParam("limit", 1000)
+                    .queryParam("after", 2)
+                .when()
+                    .get("/users")
+                .then()
+                    .statusCode(200)
+                    .header("Link", Matchers.nullValue())
+                    .body("id", Matchers.hasItems(3, 4));
+    }
+
+    @Test
+    @DisplayName("should create an user with its counters at zero")
+    public void createUserTest() {
+        given()
+                    .contentType(ContentType.JSON)
+                    .body("{\"name\": \"fulano\", \"age\": 30}")
+                .when()
+                    .post("/users")
+                .then()
+                    .statusCode(201)
+                    .body("id", Matchers.greaterThanOrEqualTo(100))
+                    .body("followersCount", Matchers.is(0))
+                    .body("postsCount", Matchers.is(0))
+                    .body("$", Matchers.not(Matchers.hasKey("followersVersion")));
+    }
+
+    @Test
+    @DisplayName("should return error when json is not valid")
+    public void createUserValidationErrorTest() {
+        given()
+                    .contentType(ContentType.JSON)
+                    .body("{}")
+                .when()
+                    .post("/users")
+                .then()
+                    .statusCode(422)
+                    .body("message", Matchers.is("Validation Error"))
+                    .body("errors.message", Matchers.containsInAnyOrder("Name is Required", "Age is Required"));
+    }
+
+    @Test
+    @DisplayName("should update and then delete an user")
+    public void updateAndDeleteUserTest() {
+        int id = given()
+                    .contentType(ContentType.JSON)
+                    .body("{\"name\": \"fulano\", \"age\": 30}")
+                .when()
+                    .post("/users")
+                .then()
+                    .statusCode(201)
+                .extract()
+                    .path("id");
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body("{\"name\": \"sicrano\", \"age\": 40}")
+                .when()
+                    .put("/users/{id}", id)
+                .then()
+                    .statusCode(204);
+
+        given()
+                    .queryParam("limit", 1)
+                    .queryParam("after", id - 1)
+                .when()
+                    .get("/users")
+                .then()
+                    .statusCode(200)
+                    .body("[0].name", Matchers.is("sicrano"))
+                    .body("[0].age", Matchers.is(40));
+
+        given()
+                .when()
+                    .delete("/users/{id}", id)
+                .then()
+                    .statusCode(204);
+
+        given()
+                .when()
+                    .delete("/users/{id}", id)
+                .then()
+                    .statusCode(404);
+    }
+
+    @Test
+    @DisplayName("should return 404 when updating an user that doesn't exist")
+    public void updateUserNotFoundTest() {
+        given()
+                    .contentType(ContentType.JSON)
+                    .body("{\"name\": \"fulano\", \"age\": 30}")
+                .when()
+                    .put("/users/{id}", 999)
+                .then()
+                    .statusCode(404);
+    }
+}
@@ -0,0 +1,26 @@
+-- fulano (1) is followed by cicrano (2) and beltrano (4); popular (3), above the test fan-out
+-- threshold, is followed by cicrano and served to it by fan-out on read
+INSERT INTO users (id, name, age, followers_count, following_count, posts_count, followers_version) VALUES (1, 'fulano', 30, 2, 0, 3, 2);
+INSERT INTO users (id, name, age, followers_count, following_count, posts_count, followers_version) VALUES (2, 'cicrano', 31, 0, 2, 0, 0);
+INSERT INTO users (id, name, age, followers_count, following_count, posts_count, followers_version) VALUES (3, 'popular', 32, 5, 0, 1, 5);
+INSERT INTO users (id, name, age, followers_count, following_count, posts_count, followers_version) VALUES (4, 'beltrano', 33, 0, 1, 0, 0);
+
+INSERT INTO followers (user_id, follower_id) VALUES (1, 2);
+INSERT INTO followers (user_id, follower_id) VALUES (1, 4);
+INSERT INTO followers (user_id, follower_id) VALUES (3, 2);
+
+-- the last one is older than social.posts.recent-window-days
+INSERT INTO posts (id, post_text, dateTime, user_id) VALUES (10, 'Newest post', now() - interval '1 day', 1);
+INSERT INTO posts (id, post_text, dateTime, user_id) VALUES (11, 'Older post', now() - interval '2 days', 1);
+INSERT INTO posts (id, post_text, dateTime, user_id) VALUES (12, 'Oldest post', now() - interval '200 days', 1);
+INSERT INTO posts (id, post_text, dateTime, user_id) VALUES (20, 'Popular post', now() - interval '3 hours', 3);
+
+-- fulano's posts fanned out to cicrano, and popular's from before it went above the threshold
+INSERT INTO timelines (user_id, post_id, dateTime) SELECT 2, id, dateTime FROM posts WHERE user_id = 1;
+INSERT INTO timelines (user_id, post_id, dateTime) SELECT 2, id, dateTime FROM posts WHERE user_id = 3;
+
+-- the id sequences are not mapped, see IdAllocator; the tests' users and posts come after the seeded ones
+DROP SEQUENCE IF EXISTS users_seq;
+CREATE SEQUENCE users_seq START 100 INCREMENT 50;
+DROP SEQUENCE IF EXISTS posts_seq;
+CREATE SEQUENCE posts_seq START 100 INCREMENT 50;
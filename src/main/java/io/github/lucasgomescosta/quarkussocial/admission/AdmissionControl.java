@@ -0,0 +1,164 @@
+package io.github.lucasgomescosta.quarkussocial.admission;
+
+import io.github.lucasgomescosta.quarkussocial.routing.RoutingConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the requests in flight against the connection pools, with separate budgets so a burst
+ * of feed reads cannot starve posts and follows, or the other way round. A request that does
+ * not get a slot within {@code social.admission.max-wait-millis} is rejected instead of
+ * queueing inside the pool until it times out.
+ * <p>
+ * Each budget protects the pool its requests are served from: {@link Budget#READ} the replica's,
+ * {@link Budget#WRITE} the primary's and the other shards', see {@link AdmissionFilter}. Startup
+ * fails when a budget is larger than its pool; without a replica both share the primary's.
+ * Background work (outbox relay, counters, ingest writer) takes connections outside the budgets,
+ * keep some headroom for it.
+ */
+@ApplicationScoped
+public class AdmissionControl {
+
+    public enum Budget {
+        /** Requests served from the read replica */
+        READ,
+        /** Requests served from the primary, or the shard of their user */
+        WRITE
+    }
+
+    private static final int DEFAULT_POOL_MAX_SIZE = 20;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "social.admission.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "social.admission.reads.max-in-flight", defaultValue = "8")
+    int maxReads;
+
+    @ConfigProperty(name = "social.admission.writes.max-in-flight", defaultValue = "4")
+    int maxWrites;
+
+    @ConfigProperty(name = "social.admission.max-wait-millis", defaultValue = "200")
+    long maxWaitMillis;
+
+    @ConfigProperty(name = "social.admission.retry-after-seconds", defaultValue = "1")
+    int retryAfterSeconds;
+
+    @Inject
+    RoutingConfiguration routing;
+
+    private Semaphore reads;
+    private Semaphore writes;
+
+    @PostConstruct
+    void init() {
+        // fair, so the requests that waited longest are admitted first
+        reads = new Semaphore(maxReads, true);
+        writes = new Semaphore(maxWrites, true);
+        registry.gauge("social.admission.in-flight", Tags.of("budget", "read"),
+                reads, semaphore -> maxReads - semaphore.availablePermits());
+        registry.gauge("social.admission.in-flight", Tags.of("budget", "write"),
+                writes, semaphore -> maxWrites - semaphore.availablePermits());
+    }
+
+    void validate(@Observes StartupEvent event) {
+        if(!enabled) {
+            return;
+        }
+        Map<String, Integer> shardPools = new LinkedHashMap<>();
+        routing.getShards().forEach(shard -> shardPools.put(shard, poolMaxSize(shard)));
+        Integer replicaPool = routing.isEnabled() ? poolMaxSize(RoutingConfiguration.REPLICA) : null;
+
+        List<String> exceeded = exceededPools(maxReads, maxWrites, shardPools, replicaPool);
+        if(!exceeded.isEmpty()) {
+            throw new IllegalStateException("Admission budgets larger than their connection pools: "
+                    + String.join("; ", exceeded));
+        }
+    }
+
+    /**
+     * Writes go to the primary or another shard, reads to the replica or, when there is none
+     * ({@code replicaPool} null), to the primary along with the writes.
+     *
+     * @return a description of each pool a budget does not fit in
+     */
+    static List<String> exceededPools(int maxReads, int maxWrites, Map<String, Integer> shardPools, Integer replicaPool) {
+        List<String> exceeded = new ArrayList<>();
+        shardPools.forEach((shard, maxSize) -> {
+            int budget = replicaPool == null && RoutingConfiguration.PRIMARY.equals(shard) ? maxReads + maxWrites : maxWrites;
+            if(budget > maxSize) {
+                exceeded.add(String.format("%d requests in flight on %s, pool max-size %d", budget, shard, maxSize));
+            }
+        });
+        if(replicaPool != null && maxReads > replicaPool) {
+            exceeded.add(String.format("%d requests in flight on %s, pool max-size %d",
+                    maxReads, RoutingConfiguration.REPLICA, replicaPool));
+        }
+        return exceeded;
+    }
+
+    private static int poolMaxSize(String dataSource) {
+        String property = RoutingConfiguration.PRIMARY.equals(dataSource)
+                ? "quarkus.datasource.jdbc.max-size"
+                : "quarkus.datasource.\"" + dataSource + "\".jdbc.max-size";
+        return ConfigProvider.getConfig().getOptionalValue(property, Integer.class).orElse(DEFAULT_POOL_MAX_SIZE);
+    }
+
+    /**
+     * @return the slot to release once the response is complete, or null when the budget stayed
+     * exhausted for the whole wait
+     */
+    public Permit tryAcquire(Budget budget) throws InterruptedException {
+        if(!enabled) {
+            return Permit.NONE;
+        }
+        Semaphore semaphore = budget == Budget.READ ? reads : writes;
+        if(!semaphore.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+            registry.counter("social.admission.rejected", "budget", budget.name().toLowerCase()).increment();
+            return null;
+        }
+        return new Permit(semaphore);
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * An admitted request's slot; releasing it more than once is a no-op.
+     */
+    public static class Permit {
+
+        static final Permit NONE = new Permit(null);
+
+        private final Semaphore semaphore;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        public void release() {
+            if(semaphore != null && released.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.lucasgomescosta.quarkussocial.admission;
+
+import io.github.lucasgomescosta.quarkussocial.routing.ReplicaRoutingFilter;
+import io.github.lucasgomescosta.quarkussocial.routing.RoutingState;
+import io.quarkus.vertx.http.runtime.CurrentVertxRequest;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Admits every resource request through {@link AdmissionControl}: requests that
+ * {@link ReplicaRoutingFilter} sends to the read replica against the read budget, everything
+ * else, including reads kept on the primary after a write, against the write budget. Rejected
+ * requests get {@code 503 Service Unavailable} with a {@code Retry-After} header.
+ */
+@Provider
+// after ReplicaRoutingFilter, which runs at the default Priorities.USER
+@Priority(Priorities.USER + 100)
+public class AdmissionFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String PERMIT = AdmissionFilter.class.getName() + ".permit";
+
+    @Inject
+    AdmissionControl admissionControl;
+
+    @Inject
+    CurrentVertxRequest currentRequest;
+
+    @Inject
+    RoutingState routingState;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        AdmissionControl.Budget budget = routingState.isReadOnly()
+                ? AdmissionControl.Budget.READ
+                : AdmissionControl.Budget.WRITE;
+
+        AdmissionControl.Permit permit;
+        try {
+            permit = admissionControl.tryAcquire(budget);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            permit = null;
+        }
+
+        if(permit == null) {
+            requestContext.abortWith(Response
+                    .status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, admissionControl.getRetryAfterSeconds())
+                    .build());
+            return;
+        }
+
+        // released once the response is written, which also covers handlers failing unmapped, whose
+        // response filters are skipped; the response filter releases it only without a routing context
+        var routingContext = currentRequest.getCurrent();
+        if(routingContext != null) {
+            AdmissionControl.Permit admitted = permit;
+            routingContext.addBodyEndHandler(ignored -> admitted.release());
+        } else {
+            requestContext.setProperty(PERMIT, permit);
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        var permit = (AdmissionControl.Permit) requestContext.getProperty(PERMIT);
+        if(permit != null) {
+            permit.release();
+        }
+    }
+}
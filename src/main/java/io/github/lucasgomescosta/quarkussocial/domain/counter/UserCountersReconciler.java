@@ -0,0 +1,80 @@
+package io.github.lucasgomescosta.quarkussocial.domain.counter;
+
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.routing.ShardRouter;
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.control.ActivateRequestContext;
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+import java.util.List;
+
+/**
+ * Recomputes the maintained followers/following/posts counters of every user from the source
+ * tables and repairs the rows that drifted (e.g. rows written by the reactive variant or by hand).
+ * Users are walked in id order, {@code social.counters.reconcile.batch-size} per transaction, so
+ * the job never locks more than one batch at a time. Each shard is reconciled in turn.
+ */
+@ApplicationScoped
+public class UserCountersReconciler {
+
+    private static final Logger LOG = Logger.getLogger(UserCountersReconciler.class);
+
+    @Inject
+    UserRepository userRepository;
+
+    @Inject
+    ShardRouter router;
+
+    @ConfigProperty(name = "social.counters.reconcile.batch-size", defaultValue = "1000")
+    int batchSize;
+
+    @Scheduled(every = "{social.counters.reconcile.every}", delayed = "{social.counters.reconcile.every}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledReconcile() {
+        long repaired = reconcile();
+        if(repaired > 0) {
+            LOG.infof("Repaired counters of %d users", repaired);
+        }
+    }
+
+    /**
+     * @return the number of users whose counters were repaired
+     */
+    @ActivateRequestContext
+    public long reconcile() {
+        long repaired = 0;
+        for (String shard : router.getShards()) {
+            repaired += router.withShard(shard, this::reconcileShard);
+        }
+        return repaired;
+    }
+
+    private long reconcileShard() {
+        long repaired = 0;
+        Long afterId = 0L;
+        while (afterId != null) {
+            List<Long> ids = findBatch(afterId);
+            if(ids.isEmpty()) {
+                break;
+            }
+            repaired += reconcileBatch(ids.get(0), ids.get(ids.size() - 1));
+            afterId = ids.size() < batchSize ? null : ids.get(ids.size() - 1);
+        }
+        return repaired;
+    }
+
+    // in a transaction of its own, so its session opens on the shard being reconciled
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    List<Long> findBatch(Long afterId) {
+        return userRepository.findIdsAfter(afterId, batchSize);
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    int reconcileBatch(Long fromId, Long toId) {
+        return userRepository.reconcileCounters(fromId, toId);
+    }
+}
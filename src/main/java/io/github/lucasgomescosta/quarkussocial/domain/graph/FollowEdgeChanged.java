@@ -0,0 +1,15 @@
+package io.github.lucasgomescosta.quarkussocial.domain.graph;
+
+import lombok.Data;
+
+/**
+ * Fired when a follow edge is created or removed. Observers that care about committed state
+ * observe it with {@code TransactionPhase.AFTER_SUCCESS}.
+ */
+@Data
+public class FollowEdgeChanged {
+
+    private final Long userId;
+    private final Long followerId;
+    private final boolean follows;
+}
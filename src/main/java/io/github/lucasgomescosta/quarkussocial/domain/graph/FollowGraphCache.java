@@ -0,0 +1,205 @@
+package io.github.lucasgomescosta.quarkussocial.domain.graph;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.FollowerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory copy of the follow graph: for each cached user, the ids of its followers.
+ * <ul>
+ *     <li>Entries are loaded lazily from the database and patched when a follow/unfollow commits,
+ *     on this instance or, through {@link FollowGraphListener}, on another one. Entries are also
+ *     reloaded once {@code social.follow-graph.expire-after-write} old.</li>
+ *     <li>The cache holds at most about {@code social.follow-graph.max-edges} follower ids in all,
+ *     the least recently used users are evicted first.</li>
+ *     <li>A change only locks the entry of its user, and only stops loads of that user (or the
+ *     few sharing its version stripe) from being cached stale.</li>
+ *     <li>Hits, misses, evictions and size are published as the {@code cache.*} meters of cache
+ *     {@value #CACHE_NAME}.</li>
+ * </ul>
+ */
+@ApplicationScoped
+public class FollowGraphCache {
+
+    public static final String CACHE_NAME = "follow-graph";
+
+    private static final int VERSION_STRIPES = 4096;
+
+    @Inject
+    FollowerRepository repository;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "social.follow-graph.max-edges", defaultValue = "10000000")
+    long maxEdges;
+
+    @ConfigProperty(name = "social.follow-graph.expire-after-write", defaultValue = "5M")
+    Duration expireAfterWrite;
+
+    // bumped on every committed change of a user, so a load racing with it is not cached stale
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private Cache<Long, Followers> followersByUser;
+
+    @PostConstruct
+    void init() {
+        followersByUser = Caffeine.newBuilder()
+                .maximumWeight(maxEdges)
+                .weigher((Long userId, Followers followers) -> followers.size())
+                .expireAfter(new ExpireAfterLoad(expireAfterWrite))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, followersByUser, CACHE_NAME);
+    }
+
+    public boolean follows(Long followerId, Long userId) {
+        if(followerId == null || userId == null) {
+            return false;
+        }
+        return followersOf(userId).contains(followerId);
+    }
+
+    private Followers followersOf(Long userId) {
+        Followers followers = followersByUser.getIfPresent(userId);
+        if(followers != null) {
+            return followers;
+        }
+
+        int stripe = stripe(userId);
+        long version = versions.get(stripe);
+        Followers loaded = new Followers(repository.findFollowerIds(userId)
+                .stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray());
+
+        // under the entry's lock, like the changes, so none can slip in between check and put
+        followersByUser.asMap().compute(userId, (id, current) ->
+                current != null || version != versions.get(stripe) ? current : loaded);
+        return loaded;
+    }
+
+    void onFollowEdgeChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) FollowEdgeChanged event) {
+        followersByUser.asMap().compute(event.getUserId(), (userId, followers) -> {
+            versions.incrementAndGet(stripe(userId));
+            return followers == null ? null : followers.with(event.getFollowerId(), event.isFollows());
+        });
+    }
+
+    public void clear() {
+        followersByUser.invalidateAll();
+    }
+
+    public long getHits() {
+        return followersByUser.stats().hitCount();
+    }
+
+    public long getMisses() {
+        return followersByUser.stats().missCount();
+    }
+
+    public long getEvictions() {
+        return followersByUser.stats().evictionCount();
+    }
+
+    public int getSize() {
+        return (int) followersByUser.estimatedSize();
+    }
+
+    private static int stripe(Long userId) {
+        return (Long.hashCode(userId) & Integer.MAX_VALUE) % VERSION_STRIPES;
+    }
+
+    /**
+     * Sorted follower ids plus the changes since they were loaded, so a follow of a popular user
+     * does not copy its whole array; the changes are folded in once there are
+     * {@value #MAX_CHANGES} of them.
+     */
+    private static final class Followers {
+
+        private static final int MAX_CHANGES = 64;
+
+        private final long[] ids;
+        // follower id -> whether it follows now
+        private final Map<Long, Boolean> changes = new ConcurrentHashMap<>();
+
+        Followers(long[] ids) {
+            this.ids = ids;
+        }
+
+        boolean contains(long followerId) {
+            Boolean changed = changes.get(followerId);
+            return changed != null ? changed : Arrays.binarySearch(ids, followerId) >= 0;
+        }
+
+        int size() {
+            return ids.length + changes.size() + 1;
+        }
+
+        /**
+         * Called under the entry's lock only.
+         */
+        Followers with(long followerId, boolean follows) {
+            changes.put(followerId, follows);
+            return changes.size() < MAX_CHANGES ? this : compact();
+        }
+
+        private Followers compact() {
+            long[] merged = Arrays.stream(ids)
+                    .filter(id -> !changes.containsKey(id))
+                    .toArray();
+            long[] added = changes.entrySet().stream()
+                    .filter(Map.Entry::getValue)
+                    .mapToLong(Map.Entry::getKey)
+                    .toArray();
+            long[] result = Arrays.copyOf(merged, merged.length + added.length);
+            System.arraycopy(added, 0, result, merged.length, added.length);
+            Arrays.sort(result);
+            return new Followers(result);
+        }
+    }
+
+    /**
+     * Expires an entry a fixed time after it was loaded; patching it does not make it fresher
+     * with regard to other instances' changes.
+     */
+    private static final class ExpireAfterLoad implements Expiry<Long, Followers> {
+
+        private final long nanos;
+
+        ExpireAfterLoad(Duration duration) {
+            this.nanos = duration.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(Long userId, Followers followers, long currentTime) {
+            return nanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long userId, Followers followers, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(Long userId, Followers followers, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.lucasgomescosta.quarkussocial.domain.graph;
+
+import io.github.lucasgomescosta.quarkussocial.routing.RoutingConfiguration;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps the {@link FollowGraphCache} of this instance in step with the follows and unfollows
+ * committed by other instances, and by the reactive variant.
+ * <ul>
+ *     <li>Every change notifies {@value #CHANNEL} in its own transaction, see {@link #payload}:
+ *     PostgreSQL delivers it once committed, in commit order.</li>
+ *     <li>Each instance listens on the primary of every shard, on a connection of its own outside
+ *     the pool, and patches its cache with the changes of the others.</li>
+ *     <li>Changes made while a connection is down are missed, so the cache is cleared each time it
+ *     (re)connects.</li>
+ * </ul>
+ * Only on PostgreSQL; elsewhere entries pick up other instances' changes once
+ * {@code social.follow-graph.expire-after-write} old.
+ */
+@ApplicationScoped
+public class FollowGraphListener {
+
+    public static final String CHANNEL = "follow_graph";
+
+    private static final Logger LOG = Logger.getLogger(FollowGraphListener.class);
+    private static final String INSTANCE = UUID.randomUUID().toString();
+
+    @Inject
+    FollowGraphCache cache;
+
+    @Inject
+    RoutingConfiguration routing;
+
+    @Inject
+    Config config;
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @ConfigProperty(name = "social.follow-graph.listen.poll-millis", defaultValue = "500")
+    int pollMillis;
+
+    @ConfigProperty(name = "social.follow-graph.listen.retry-millis", defaultValue = "1000")
+    int retryMillis;
+
+    private final List<Thread> listeners = new ArrayList<>();
+    private volatile boolean running;
+
+    public boolean isEnabled() {
+        return "postgresql".equals(dbKind);
+    }
+
+    /**
+     * The notification of a change made by this instance: {@code instance:userId:followerId:0|1}.
+     */
+    public String payload(FollowEdgeChanged event) {
+        return INSTANCE + ":" + event.getUserId() + ":" + event.getFollowerId() + ":" + (event.isFollows() ? 1 : 0);
+    }
+
+    void start(@Observes StartupEvent event) {
+        if(!isEnabled()) {
+            return;
+        }
+        running = true;
+        for (String shard : routing.getShards()) {
+            Thread listener = new Thread(() -> listen(shard), "follow-graph-listener-" + shard);
+            listener.setDaemon(true);
+            listener.start();
+            listeners.add(listener);
+        }
+    }
+
+    void stop(@Observes ShutdownEvent event) {
+        running = false;
+        listeners.forEach(Thread::interrupt);
+    }
+
+    private void listen(String shard) {
+        while (running) {
+            try (Connection connection = connect(shard)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                cache.clear();
+
+                PGConnection notifications = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] received = notifications.getNotifications(pollMillis);
+                    if(received != null) {
+                        for (PGNotification notification : received) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if(running) {
+                    LOG.warnf(e, "Lost the follow graph notifications of shard %s, reconnecting", shard);
+                    sleep();
+                }
+            }
+        }
+    }
+
+    void apply(String payload) {
+        String[] parts = payload.split(":");
+        if(parts.length != 4 || INSTANCE.equals(parts[0])) {
+            return;
+        }
+        cache.onFollowEdgeChanged(new FollowEdgeChanged(Long.valueOf(parts[1]), Long.valueOf(parts[2]), "1".equals(parts[3])));
+    }
+
+    /**
+     * The default datasource is the "primary" shard, the others are named ones.
+     */
+    private Connection connect(String shard) throws SQLException {
+        String prefix = RoutingConfiguration.PRIMARY.equals(shard) ? "quarkus.datasource." : "quarkus.datasource.\"" + shard + "\".";
+        return DriverManager.getConnection(
+                config.getValue(prefix + "jdbc.url", String.class),
+                config.getOptionalValue(prefix + "username", String.class).orElse(null),
+                config.getOptionalValue(prefix + "password", String.class).orElse(null));
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(retryMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,20 +4,28 @@ import lombok.Data;
 
 import javax.persistence.*;
 
+/**
+ * A follow edge. The pair (user, follower) is the primary key, so an edge can only exist once;
+ * the reverse index serves "who does this user follow" lookups.
+ * <p>
+ * Each shard keeps the edges of its users, so an edge between users of two shards is stored on
+ * both and one of its users is not on either: there are no foreign keys to users.
+ */
 @Entity
-@Table(name = "followers")
+@Table(name = "followers", indexes = {
+        @Index(name = "idx_followers_follower_user", columnList = "follower_id, user_id")
+})
+@IdClass(FollowerId.class)
 @Data
 public class Follower {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
     @ManyToOne
-    @JoinColumn(name = "user_id")
+    @JoinColumn(name = "user_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private User user;
 
+    @Id
     @ManyToOne
-    @JoinColumn(name = "follower_id")
+    @JoinColumn(name = "follower_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private User follower;
 }
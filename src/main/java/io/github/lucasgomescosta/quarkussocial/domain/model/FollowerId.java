@@ -0,0 +1,16 @@
+package io.github.lucasgomescosta.quarkussocial.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FollowerId implements Serializable {
+
+    private Long user;
+    private Long follower;
+}
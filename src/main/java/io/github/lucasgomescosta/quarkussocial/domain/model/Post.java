@@ -1,23 +1,32 @@
 package io.github.lucasgomescosta.quarkussocial.domain.model;
 
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_user_datetime_id", columnList = "user_id, dateTime DESC, id DESC")
+})
 @Data
 public class Post {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_seq")
+    @GenericGenerator(name = "posts_seq", strategy = Sequences.PRESET_ID_GENERATOR, parameters = {
+            @Parameter(name = "sequence_name", value = "posts_seq"),
+            @Parameter(name = "optimizer", value = Sequences.OPTIMIZER)
+    })
     private Long id;
 
     @Column(name = "post_text")
     private String text;
 
-    @Column(name = "dateTime")
+    // partition key of posts, see db/migrations/006_partition_posts.sql
+    @Column(name = "dateTime", nullable = false)
     private LocalDateTime dateTime;
 
     @ManyToOne
@@ -26,6 +35,8 @@ public class Post {
 
     @PrePersist
     public void prePersist() {
-        setDateTime(LocalDateTime.now());
+        if(dateTime == null) {
+            setDateTime(LocalDateTime.now());
+        }
     }
 }
@@ -0,0 +1,30 @@
+package io.github.lucasgomescosta.quarkussocial.domain.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * {@link Sequences#GENERATOR} keeping an id the entity already has, for users and posts whose id
+ * is taken before they are saved, see {@code UserRepository#create} and
+ * {@code PostRepository#assignId}. Its increment is {@link Sequences#allocationSize()}.
+ */
+public class PresetIdSequenceGenerator extends SequenceStyleGenerator {
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        params.setProperty(INCREMENT_PARAM, String.valueOf(Sequences.allocationSize()));
+        super.configure(type, params, serviceRegistry);
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        Serializable id = session.getEntityPersister(null, object).getIdentifier(object, session);
+        return id != null ? id : super.generate(session, object);
+    }
+}
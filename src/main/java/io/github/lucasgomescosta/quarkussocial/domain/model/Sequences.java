@@ -0,0 +1,32 @@
+package io.github.lucasgomescosta.quarkussocial.domain.model;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+
+/**
+ * Identifier generation shared by the entities. Ids come from database sequences through the
+ * pooled-lo optimizer: one {@code nextval} reserves {@link #allocationSize()} ids, so inserts need
+ * no round trip for their key and Hibernate can send them as JDBC batches.
+ * <p>
+ * The sequences in db/db.sql are created with the same increment; change both together, a
+ * mismatch is reported at startup by {@code SequenceIncrementValidator}.
+ */
+public final class Sequences {
+
+    public static final String ALLOCATION_SIZE_PROPERTY = "social.ids.allocation-size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+    public static final String OPTIMIZER = "pooled-lo";
+    public static final String GENERATOR = "org.hibernate.id.enhanced.SequenceStyleGenerator";
+    public static final String PRESET_ID_GENERATOR = "io.github.lucasgomescosta.quarkussocial.domain.model.PresetIdSequenceGenerator";
+
+    private Sequences() {
+    }
+
+    /**
+     * Ids reserved by one {@code nextval}, {@value #ALLOCATION_SIZE_PROPERTY}.
+     */
+    public static int allocationSize() {
+        return ConfigProvider.getConfig()
+                .getOptionalValue(ALLOCATION_SIZE_PROPERTY, Integer.class)
+                .orElse(DEFAULT_ALLOCATION_SIZE);
+    }
+}
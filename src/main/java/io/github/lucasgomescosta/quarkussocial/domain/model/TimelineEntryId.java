@@ -0,0 +1,16 @@
+package io.github.lucasgomescosta.quarkussocial.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelineEntryId implements Serializable {
+
+    private Long userId;
+    private Long postId;
+}
@@ -1,16 +1,23 @@
 package io.github.lucasgomescosta.quarkussocial.domain.model;
 
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
 @Entity
+@Cacheable
 @Table(name = "users")
 @Data
 public class User{
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @GenericGenerator(name = "users_seq", strategy = Sequences.PRESET_ID_GENERATOR, parameters = {
+            @Parameter(name = "sequence_name", value = "users_seq"),
+            @Parameter(name = "optimizer", value = Sequences.OPTIMIZER)
+    })
     private Long id;
 
     @Column
@@ -19,4 +26,18 @@ public class User{
     @Column
     private Integer age;
 
+    // maintained with relative updates by UserRepository, never written back from the entity
+    @Column(name = "followers_count", nullable = false, updatable = false)
+    private Long followersCount = 0L;
+
+    @Column(name = "following_count", nullable = false, updatable = false)
+    private Long followingCount = 0L;
+
+    @Column(name = "posts_count", nullable = false, updatable = false)
+    private Long postsCount = 0L;
+
+    // bumped on every follow and unfollow of this user, versions its follower listing
+    @Column(name = "followers_version", nullable = false, updatable = false)
+    private Long followersVersion = 0L;
+
 }
@@ -0,0 +1,38 @@
+package io.github.lucasgomescosta.quarkussocial.domain.outbox;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.OutboxEvent;
+import lombok.Data;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+
+/**
+ * An event as published to an {@link OutboxSink}. Delivery is at least once: a consumer keeping
+ * the last {@code id} it applied per {@code userId} can skip the duplicates, ids of a user only
+ * grow.
+ */
+@Data
+public class ChangeEvent {
+
+    private final Long id;
+    private final Long userId;
+    private final String type;
+    private final String payload;
+    private final LocalDateTime createdAt;
+
+    public static ChangeEvent fromEntity(OutboxEvent event) {
+        return new ChangeEvent(event.getId(), event.getUserId(), event.getType(), event.getPayload(), event.getCreatedAt());
+    }
+
+    public JsonObject toJson() {
+        return Json.createObjectBuilder()
+                .add("id", id)
+                .add("userId", userId)
+                .add("type", type)
+                .add("createdAt", createdAt.toString())
+                .add("payload", Json.createReader(new StringReader(payload)).readObject())
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.lucasgomescosta.quarkussocial.domain.outbox;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Named;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events as newline delimited JSON to {@code social.outbox.file.path}, synced to disk
+ * once per batch. Consumers tail the file and keep the byte offset they read up to.
+ */
+@Named(FileOutboxSink.NAME)
+@ApplicationScoped
+public class FileOutboxSink implements OutboxSink {
+
+    public static final String NAME = "file";
+
+    @ConfigProperty(name = "social.outbox.file.path", defaultValue = "outbox.ndjson")
+    String path;
+
+    @Override
+    public synchronized void publish(List<ChangeEvent> events) {
+        StringBuilder lines = new StringBuilder();
+        for (ChangeEvent event : events) {
+            lines.append(event.toJson()).append('\n');
+        }
+
+        Path file = Paths.get(path);
+        try {
+            if(file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.lucasgomescosta.quarkussocial.domain.outbox;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Named;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Publishes to a broker through its HTTP front, in the format of the Kafka REST proxy
+ * ({@code POST /topics/<topic>}, one request per batch) at {@code social.outbox.http.url}.
+ * Records are keyed by user id, so a user's events land on one partition and keep their order.
+ */
+@Named(HttpOutboxSink.NAME)
+@ApplicationScoped
+public class HttpOutboxSink implements OutboxSink {
+
+    public static final String NAME = "http";
+    static final String CONTENT_TYPE = "application/vnd.kafka.json.v2+json";
+
+    @ConfigProperty(name = "social.outbox.http.url", defaultValue = "http://localhost:8082/topics/social-changes")
+    String url;
+
+    @ConfigProperty(name = "social.outbox.http.timeout-millis", defaultValue = "5000")
+    long timeoutMillis;
+
+    private HttpClient client;
+
+    @PostConstruct
+    void init() {
+        client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(timeoutMillis))
+                .build();
+    }
+
+    @Override
+    public void publish(List<ChangeEvent> events) {
+        JsonArrayBuilder records = Json.createArrayBuilder();
+        for (ChangeEvent event : events) {
+            records.add(Json.createObjectBuilder()
+                    .add("key", event.getUserId().toString())
+                    .add("value", event.toJson()));
+        }
+        String body = Json.createObjectBuilder().add("records", records).build().toString();
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .header("Content-Type", CONTENT_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not publish change events to " + url, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing change events to " + url, e);
+        }
+        if(response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Publishing change events to " + url + " failed with "
+                    + response.statusCode() + ": " + response.body());
+        }
+    }
+}
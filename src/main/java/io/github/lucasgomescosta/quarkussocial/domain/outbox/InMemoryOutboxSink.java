@@ -0,0 +1,41 @@
+package io.github.lucasgomescosta.quarkussocial.domain.outbox;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps every published event in memory, for local runs and tests. Consumers read the log from
+ * their own offset, like from a single partition of a broker; nothing is ever dropped.
+ */
+@Named(InMemoryOutboxSink.NAME)
+@ApplicationScoped
+public class InMemoryOutboxSink implements OutboxSink {
+
+    public static final String NAME = "memory";
+
+    private final List<ChangeEvent> log = new ArrayList<>();
+    private final Map<String, Integer> offsets = new HashMap<>();
+
+    @Override
+    public synchronized void publish(List<ChangeEvent> events) {
+        log.addAll(events);
+    }
+
+    /**
+     * Up to {@code max} events after the offset of {@code consumer}, which moves past them.
+     */
+    public synchronized List<ChangeEvent> poll(String consumer, int max) {
+        int offset = offsets.getOrDefault(consumer, 0);
+        List<ChangeEvent> events = new ArrayList<>(log.subList(offset, Math.min(log.size(), offset + max)));
+        offsets.put(consumer, offset + events.size());
+        return events;
+    }
+
+    public synchronized int getOffset(String consumer) {
+        return offsets.getOrDefault(consumer, 0);
+    }
+}
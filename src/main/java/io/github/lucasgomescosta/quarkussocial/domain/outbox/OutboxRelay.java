@@ -0,0 +1,105 @@
+package io.github.lucasgomescosta.quarkussocial.domain.outbox;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.OutboxEvent;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.OutboxRepository;
+import io.github.lucasgomescosta.quarkussocial.routing.ShardRouter;
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.control.ActivateRequestContext;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Instance;
+import javax.enterprise.inject.literal.NamedLiteral;
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes the outbox of every shard to the {@link OutboxSink} named by {@code social.outbox.sink},
+ * {@code social.outbox.relay.batch-size} events at a time in id order, and deletes them once
+ * published. A batch is read, published and deleted in one transaction: when the sink fails, or
+ * the delete does not commit after the sink took the batch, it is published again on the next
+ * run, so delivery is at least once.
+ */
+@ApplicationScoped
+public class OutboxRelay {
+
+    private static final Logger LOG = Logger.getLogger(OutboxRelay.class);
+
+    @Inject
+    OutboxRepository outboxRepository;
+
+    @Inject
+    ShardRouter router;
+
+    @Inject
+    @Any
+    Instance<OutboxSink> sinks;
+
+    @ConfigProperty(name = "social.outbox.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "social.outbox.sink", defaultValue = InMemoryOutboxSink.NAME)
+    String sinkName;
+
+    @ConfigProperty(name = "social.outbox.relay.batch-size", defaultValue = "500")
+    int batchSize;
+
+    private OutboxSink sink;
+
+    @PostConstruct
+    void init() {
+        if(enabled) {
+            sink = sinks.select(NamedLiteral.of(sinkName)).get();
+        }
+    }
+
+    @Scheduled(every = "{social.outbox.relay.every}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledRelay() {
+        try {
+            relay();
+        } catch (RuntimeException e) {
+            LOG.error("Could not relay the outbox", e);
+        }
+    }
+
+    /**
+     * @return the number of published events
+     */
+    @ActivateRequestContext
+    public long relay() {
+        if(!enabled) {
+            return 0;
+        }
+        long published = 0;
+        for (String shard : router.getShards()) {
+            published += router.withShard(shard, this::relayShard);
+        }
+        return published;
+    }
+
+    private long relayShard() {
+        long published = 0;
+        int batch;
+        do {
+            batch = publishBatch();
+            published += batch;
+        } while (batch == batchSize);
+        return published;
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    int publishBatch() {
+        List<OutboxEvent> events = outboxRepository.findBatch(batchSize);
+        if(events.isEmpty()) {
+            return 0;
+        }
+        sink.publish(events.stream().map(ChangeEvent::fromEntity).collect(Collectors.toList()));
+        outboxRepository.deletePublished(events.stream().map(OutboxEvent::getId).collect(Collectors.toList()));
+        return events.size();
+    }
+}
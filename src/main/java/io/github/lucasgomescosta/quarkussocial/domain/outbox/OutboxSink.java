@@ -0,0 +1,16 @@
+package io.github.lucasgomescosta.quarkussocial.domain.outbox;
+
+import java.util.List;
+
+/**
+ * Where {@link OutboxRelay} publishes change events, picked by {@code social.outbox.sink}
+ * among the beans named after it.
+ */
+public interface OutboxSink {
+
+    /**
+     * Publishes a batch in order, returning only once it is durable in the sink. Throwing leaves
+     * the whole batch in the outbox, to be published again.
+     */
+    void publish(List<ChangeEvent> events);
+}
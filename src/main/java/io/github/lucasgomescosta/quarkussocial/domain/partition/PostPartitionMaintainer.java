@@ -0,0 +1,64 @@
+package io.github.lucasgomescosta.quarkussocial.domain.partition;
+
+import io.github.lucasgomescosta.quarkussocial.domain.repository.PostRepository;
+import io.github.lucasgomescosta.quarkussocial.routing.ShardRouter;
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.control.ActivateRequestContext;
+import javax.inject.Inject;
+import java.time.YearMonth;
+
+/**
+ * Keeps the monthly partitions of posts created {@code social.posts.partitions.months-ahead}
+ * months ahead, so new posts never land in the default partition, which a later month could not
+ * be attached over. Only runs against PostgreSQL, the other databases (H2 in tests) keep posts
+ * in a plain table.
+ */
+@ApplicationScoped
+public class PostPartitionMaintainer {
+
+    private static final Logger LOG = Logger.getLogger(PostPartitionMaintainer.class);
+
+    @Inject
+    PostRepository postRepository;
+
+    @Inject
+    ShardRouter router;
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @ConfigProperty(name = "social.posts.partitions.months-ahead", defaultValue = "3")
+    int monthsAhead;
+
+    @Scheduled(every = "{social.posts.partitions.maintain-every}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void scheduledMaintain() {
+        if(!"postgresql".equals(dbKind)) {
+            return;
+        }
+        try {
+            maintain(YearMonth.now());
+        } catch (RuntimeException e) {
+            LOG.error("Could not create the upcoming partitions of posts", e);
+        }
+    }
+
+    /**
+     * Creates the partitions from {@code current} to {@code monthsAhead} months after it, on
+     * every shard.
+     */
+    @ActivateRequestContext
+    public void maintain(YearMonth current) {
+        for (String shard : router.getShards()) {
+            router.withShard(shard, () -> {
+                for (int i = 0; i <= monthsAhead; i++) {
+                    postRepository.createPartition(current.plusMonths(i));
+                }
+            });
+        }
+    }
+}
@@ -1,42 +1,281 @@
 package io.github.lucasgomescosta.quarkussocial.domain.repository;
 
+import io.github.lucasgomescosta.quarkussocial.domain.graph.FollowEdgeChanged;
+import io.github.lucasgomescosta.quarkussocial.domain.graph.FollowGraphCache;
+import io.github.lucasgomescosta.quarkussocial.domain.graph.FollowGraphListener;
 import io.github.lucasgomescosta.quarkussocial.domain.model.Follower;
+import io.github.lucasgomescosta.quarkussocial.domain.model.FollowerId;
 import io.github.lucasgomescosta.quarkussocial.domain.model.User;
-import io.quarkus.hibernate.orm.panache.PanacheQuery;
-import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.github.lucasgomescosta.quarkussocial.metrics.MetricsConfiguration;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.FollowerResponse;
+import io.github.lucasgomescosta.quarkussocial.routing.ShardRouter;
+import io.github.lucasgomescosta.quarkussocial.routing.ShardedQueries;
+import io.github.lucasgomescosta.quarkussocial.tracing.Traced;
+import io.micrometer.core.annotation.Timed;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
 import io.quarkus.panache.common.Parameters;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.query.NativeQuery;
 
 import javax.enterprise.context.ApplicationScoped;
-import java.util.HashMap;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
-public class FollowerRepository implements PanacheRepository<Follower> {
+public class FollowerRepository implements PanacheRepositoryBase<Follower, FollowerId> {
 
-    public boolean follows(User follower, User user) {
-        Map<String, Object> params = new HashMap<>();
-        params.put("follower", follower);
-        params.put("user", user);
-        PanacheQuery<Follower> query = find("follower = :follower and user = :user ", params);
-        Optional<Follower> result = query.firstResultOptional();
+    @Inject
+    FollowGraphCache followGraph;
 
-        return result.isPresent();
+    @Inject
+    UserRepository userRepository;
+
+    @Inject
+    OutboxRepository outboxRepository;
+
+    @Inject
+    Event<FollowEdgeChanged> followEdgeChanged;
+
+    @Inject
+    FollowGraphListener followGraphListener;
+
+    @Inject
+    ShardRouter router;
+
+    @Inject
+    ShardedQueries shardedQueries;
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @Timed(MetricsConfiguration.REPOSITORY_TIMER)
+    @Traced
+    public boolean follows(Long followerId, Long userId) {
+        if(followerId == null || userId == null) {
+            return false;
+        }
+        return followGraph.follows(followerId, userId);
+    }
+
+    /**
+     * Creates the follow edge with a single idempotent statement, on the request's shard, which
+     * is the one of {@code user}. When {@code follower} is on another shard the edge must be
+     * copied there too, see {@link #followOnFollowerShard}.
+     *
+     * @return true when the edge was created, false when it already existed
+     */
+    @Timed(MetricsConfiguration.REPOSITORY_TIMER)
+    @Traced
+    public boolean follow(User user, User follower) {
+        boolean inserted = insertEdge(user.getId(), follower.getId());
+        if(inserted) {
+            userRepository.updateFollowCounters(user.getId(), follower.getId(), 1);
+            outboxRepository.followChanged(user.getId(), follower.getId(), true);
+            edgeChanged(new FollowEdgeChanged(user.getId(), follower.getId(), true));
+        }
+        return inserted;
+    }
+
+    /**
+     * Every shard keeps the edges of its users, both ways: this writes the copy of a cross-shard
+     * edge on the shard of the follower, which the caller routes to, in a transaction of its own
+     * and counts it in the following count there. It is written before the edge on the shard of
+     * the followed user, and both are idempotent, so a follow that failed in between is completed
+     * by retrying it.
+     *
+     * @return true when the copy was created, false when it already existed
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    @Timed(MetricsConfiguration.REPOSITORY_TIMER)
+    @Traced
+    public boolean followOnFollowerShard(Long userId, Long followerId) {
+        boolean inserted = insertEdge(userId, followerId);
+        if(inserted) {
+            // the followed user is not on this shard, only the follower's row is updated
+            userRepository.updateFollowCounters(userId, followerId, 1);
+        }
+        return inserted;
+    }
+
+    private boolean insertEdge(Long userId, Long followerId) {
+        // H2 1.4 cannot bind parameters in a MERGE ... USING source, the primary key still
+        // rejects a concurrent duplicate there
+        String sql = "h2".equals(dbKind)
+                ? "insert into followers (user_id, follower_id) " +
+                  "select cast(:userId as bigint), cast(:followerId as bigint) from dual " +
+                  "where not exists (select 1 from followers where user_id = :userId and follower_id = :followerId)"
+                : "insert into followers (user_id, follower_id) values (:userId, :followerId) " +
+                  "on conflict do nothing";
+
+        // only follower-dependent cached queries are invalidated, not every cache region
+        return getEntityManager()
+                .createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Follower.class)
+                .setParameter("userId", userId)
+                .setParameter("followerId", followerId)
+                .executeUpdate() > 0;
+    }
+
+    /**
+     * Read from the primary of the user's shard even on a read-only request: the ids are kept
+     * by {@link FollowGraphCache}, a copy from the lagging replica would outlive its lag.
+     */
+    @Timed(MetricsConfiguration.REPOSITORY_TIMER)
+    @Traced
+    public List<Long> findFollowerIds(Long userId) {
+        return shardedQueries.onPrimary(router.shardOf(userId), entityManager -> findFollowerIds(entityManager, userId));
+    }
+
+    protected List<Long> findFollowerIds(EntityManager entityManager, Long userId) {
+        return entityManager
+                .createQuery("select f.follower.id from Follower f where f.user.id = :userId", Long.class)
+                .setParameter("userId", userId)
+                .getResultList();
+    }
+
+    /**
+     * Id and name of up to {@code limit} followers with an id greater than {@code afterFollowerId}
+     * (all when null), in follower id order, in a single select over the primary key index and
+     * without loading the {@link Follower} entities and their eager associations row by row.
+     * Only the names of followers on other shards are looked up there afterwards.
+     */
+    @Timed(MetricsConfiguration.REPOSITORY_TIMER)
+    @Traced
+    public List<FollowerResponse> findFollowerResponsesByUser(Long userId, Long afterFollowerId, int limit) {
+        String jpql = "select new " + FollowerResponse.class.getName() + "(f.follower.id, u.name) " +
+                "from Follower f left join User u on u.id = f.follower.id where f.user.id = :userId " +
+                (afterFollowerId == null ? "" : "and f.follower.id > :after ") +
+                "order by f.follower.id";
+
+        TypedQuery<FollowerResponse> query = getEntityManager()
+                .createQuery(jpql, FollowerResponse.class)
+                .setParameter("userId", userId);
+        if(afterFollowerId != null) {
+            query.setParameter("after", afterFollowerId);
+        }
+        return withNamesFromOtherShards(query.setMaxResults(limit).getResultList());
+    }
+
+    private List<FollowerResponse> withNamesFromOtherShards(List<FollowerResponse> followers) {
+        Map<String, List<Long>> elsewhere = followers.stream()
+                .filter(follower -> follower.getName() == null)
+                .map(FollowerResponse::getId)
+                .collect(Collectors.groupingBy(router::shardOf));
+        if(elsewhere.isEmpty()) {
+            return followers;
+        }
+
+        Map<Long, String> names = shardedQueries.scatter(elsewhere, (entityManager, ids) -> entityManager
+                        .createQuery("select new " + FollowerResponse.class.getName() + "(u.id, u.name) " +
+                                "from User u where u.id in :ids", FollowerResponse.class)
+                        .setParameter("ids", ids)
+                        .getResultList())
+                .stream()
+                .collect(Collectors.toMap(FollowerResponse::getId, FollowerResponse::getName));
+
+        // a follower found on no shard is left out, like by the join on a single shard
+        return followers.stream()
+                .filter(follower -> follower.getName() != null || names.containsKey(follower.getId()))
+                .map(follower -> follower.getName() != null ? follower : new FollowerResponse(follower.getId(), names.get(follower.getId())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The followed users of this shard with more than {@code followersCount} followers; those on
+     * other shards are in {@link #findFollowedOnOtherShards}.
+     */
+    @Timed(MetricsConfiguration.REPOSITORY_TIMER)
+    @Traced
+    public List<Long> findFollowedWithMoreFollowersThan(Long followerId, long followersCount) {
+        return getEntityManager()
+                .createQuery("select f.user.id from Follower f where f.follower.id = :followerId " +
+                        "and f.user.followersCount > :followersCount", Long.class)
+                .setParameter("followerId", followerId)
+                .setParameter("followersCount", followersCount)
+                .getResultList();
+    }
+
+    /**
+     * The users {@code followerId} follows on other shards, from the copies of the edges kept on
+     * the follower's shard, which the request must be routed to.
+     */
+    @Timed(MetricsConfiguration.REPOSITORY_TIMER)
+    @Traced
+    public List<Long> findFollowedOnOtherShards(Long followerId) {
+        if(!router.isSharded()) {
+            return List.of();
+        }
+        return getEntityManager()
+                .createQuery("select f.user.id from Follower f where f.follower.id = :followerId " +
+                        "and not exists (select 1 from User u where u.id = f.user.id)", Long.class)
+                .setParameter("followerId", followerId)
+                .getResultList();
+    }
+
+    /**
+     * Deletes the edge on the request's shard, which is the one of the followed user. Like for
+     * {@link #follow}, a copy on the follower's shard is deleted first, by
+     * {@link #unfollowOnFollowerShard}.
+     *
+     * @return false when there was no such edge
+     */
+    @Timed(MetricsConfiguration.REPOSITORY_TIMER)
+    @Traced
+    public boolean deleteByFollowerAndUser(Long followerId, Long userId) {
+        boolean deleted = deleteEdge(followerId, userId);
+        if(deleted) {
+            userRepository.updateFollowCounters(userId, followerId, -1);
+            outboxRepository.followChanged(userId, followerId, false);
+            edgeChanged(new FollowEdgeChanged(userId, followerId, false));
+        }
+        return deleted;
+    }
+
+    /**
+     * Counterpart of {@link #followOnFollowerShard} for an unfollow.
+     *
+     * @return false when there was no such copy
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    @Timed(MetricsConfiguration.REPOSITORY_TIMER)
+    @Traced
+    public boolean unfollowOnFollowerShard(Long userId, Long followerId) {
+        boolean deleted = deleteEdge(followerId, userId);
+        if(deleted) {
+            userRepository.updateFollowCounters(userId, followerId, -1);
+        }
+        return deleted;
     }
 
-    public List<Follower> findByUser(Long userId) {
-        PanacheQuery<Follower> query = find("user.id", userId);
-        return query.list();
+    /**
+     * Patches the follow graph of this instance once committed, and of the others through a
+     * notification sent with the commit, see {@link FollowGraphListener}.
+     */
+    private void edgeChanged(FollowEdgeChanged event) {
+        followEdgeChanged.fire(event);
+        if(followGraphListener.isEnabled()) {
+            getEntityManager()
+                    .createNativeQuery("select cast(pg_notify(:channel, :payload) as varchar)")
+                    .setParameter("channel", FollowGraphListener.CHANNEL)
+                    .setParameter("payload", followGraphListener.payload(event))
+                    .getSingleResult();
+        }
     }
 
-    public void deleteByFollowerAndUser(Long followerId, Long userId) {
+    private boolean deleteEdge(Long followerId, Long userId) {
         var params = Parameters
                 .with("userId", userId)
                 .and("followerId", followerId)
                 .map();
 
-        delete("follower.id = :followerId and user.id = :userId ", params);
+        return delete("follower.id = :followerId and user.id = :userId ", params) > 0;
     }
 
 }
@@ -0,0 +1,75 @@
+package io.github.lucasgomescosta.quarkussocial.domain.repository;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.OutboxEvent;
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.tracing.Traced;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Change events of posts and follows for downstream consumers (transactional outbox). Events are
+ * appended in the transaction of the change, after its counters update has locked the user row,
+ * so two changes of a user get increasing ids in the order they commit.
+ */
+@ApplicationScoped
+public class OutboxRepository implements PanacheRepository<OutboxEvent> {
+
+    @ConfigProperty(name = "social.outbox.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @Traced
+    public void postCreated(Post post) {
+        append(OutboxEvent.POST_CREATED, post.getUser().getId(), Json.createObjectBuilder()
+                .add("id", post.getId())
+                .add("userId", post.getUser().getId())
+                .add("text", post.getText())
+                .add("dateTime", post.getDateTime().toString())
+                .build());
+    }
+
+    @Traced
+    public void followChanged(Long userId, Long followerId, boolean follows) {
+        append(follows ? OutboxEvent.USER_FOLLOWED : OutboxEvent.USER_UNFOLLOWED, userId, Json.createObjectBuilder()
+                .add("userId", userId)
+                .add("followerId", followerId)
+                .build());
+    }
+
+    private void append(String type, Long userId, JsonObject payload) {
+        if(!enabled) {
+            return;
+        }
+        OutboxEvent event = new OutboxEvent();
+        event.setType(type);
+        event.setUserId(userId);
+        event.setPayload(payload.toString());
+        event.setCreatedAt(LocalDateTime.now());
+        persist(event);
+    }
+
+    /**
+     * The oldest unpublished events, locked until the transaction ends so a relay running on
+     * another instance waits instead of publishing them too.
+     */
+    @Traced
+    public List<OutboxEvent> findBatch(int limit) {
+        return findAll(Sort.by("id"))
+                .withLock(LockModeType.PESSIMISTIC_WRITE)
+                .range(0, limit - 1)
+                .list();
+    }
+
+    @Traced
+    public void deletePublished(Collection<Long> ids) {
+        delete("id in ?1", ids);
+    }
+}
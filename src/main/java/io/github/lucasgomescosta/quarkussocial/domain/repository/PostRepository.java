@@ -1,10 +1,169 @@
 package io.github.lucasgomescosta.quarkussocial.domain.repository;
 
 import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.tracing.Traced;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class PostRepository implements PanacheRepository<Post> {
+
+    @Inject
+    TimelineRepository timelineRepository;
+
+    @Inject
+    UserRepository userRepository;
+
+    @Inject
+    OutboxRepository outboxRepository;
+
+    @Inject
+    Event<PostsChanged> postsChanged;
+
+    @ConfigProperty(name = "social.posts.recent-window-days", defaultValue = "90")
+    int recentWindowDays;
+
+    private static final Sort NEWEST_FIRST = Sort
+            .by("dateTime", Sort.Direction.Descending)
+            .and("id", Sort.Direction.Descending);
+
+    /**
+     * Persists a new post and counts it on its author.
+     */
+    @Traced
+    public void create(Post post) {
+        persist(post);
+        userRepository.updatePostsCount(post.getUser().getId(), 1);
+        outboxRepository.postCreated(post);
+        postsChanged.fire(new PostsChanged(post.getUser().getId()));
+    }
+
+    /**
+     * Gives a post that is persisted later, by {@link #persistChunk}, its id now, from the
+     * {@code posts_seq} of the request's shard.
+     */
+    @Traced
+    public void assignId(Post post) {
+        SessionImplementor session = getEntityManager().unwrap(SessionImplementor.class);
+        post.setId((Long) session.getFactory()
+                .getMetamodel()
+                .entityPersister(Post.class)
+                .getIdentifierGenerator()
+                .generate(session, post));
+    }
+
+    /**
+     * Keyset page of a user's posts, newest first. When {@code beforeDateTime}/{@code beforeId}
+     * are given only posts strictly older than that position are returned, so the cost of a page
+     * does not depend on how deep into the history it is (index posts(user_id, dateTime, id)).
+     * <p>
+     * posts is partitioned by month: the page is first read from the
+     * {@code social.posts.recent-window-days} before the position, bounded on both sides so only
+     * those months are planned and scanned, and only a short page goes on to the older ones.
+     */
+    @Traced
+    public List<Post> findPageByUser(User user, LocalDateTime beforeDateTime, Long beforeId, int limit) {
+        boolean seek = beforeDateTime != null && beforeId != null;
+        LocalDateTime since = (seek ? beforeDateTime : LocalDateTime.now()).minusDays(recentWindowDays);
+
+        PanacheQuery<Post> recent;
+        if(!seek) {
+            recent = find("user = :user and dateTime >= :since", NEWEST_FIRST,
+                    Parameters.with("user", user).and("since", since));
+        } else {
+            var params = Parameters
+                    .with("user", user)
+                    .and("since", since)
+                    .and("dateTime", beforeDateTime)
+                    .and("id", beforeId);
+
+            // the redundant dateTime <= :dateTime is a range the planner can prune on, the or is not
+            recent = find("user = :user and dateTime >= :since and dateTime <= :dateTime " +
+                            "and (dateTime < :dateTime or (dateTime = :dateTime and id < :id))",
+                    NEWEST_FIRST, params);
+        }
+        List<Post> page = new ArrayList<>(recent.range(0, limit - 1).list());
+
+        if(page.size() < limit) {
+            page.addAll(findOlderThan(user, since).range(0, limit - page.size() - 1).list());
+        }
+        return page;
+    }
+
+    /**
+     * The user's most recent post, read from the top of index posts(user_id, dateTime, id) in the
+     * recent months first.
+     */
+    @Traced
+    public Post findNewestByUser(User user) {
+        LocalDateTime since = LocalDateTime.now().minusDays(recentWindowDays);
+        Post newest = find("user = :user and dateTime >= :since", NEWEST_FIRST,
+                Parameters.with("user", user).and("since", since)).firstResult();
+        return newest != null ? newest : findOlderThan(user, since).firstResult();
+    }
+
+    private PanacheQuery<Post> findOlderThan(User user, LocalDateTime since) {
+        return find("user = :user and dateTime < :since", NEWEST_FIRST,
+                Parameters.with("user", user).and("since", since));
+    }
+
+    /**
+     * Creates the partition of posts for {@code month} unless it exists, see
+     * db/migrations/006_partition_posts.sql. PostgreSQL only.
+     */
+    @Transactional
+    @Traced
+    public void createPartition(YearMonth month) {
+        getEntityManager()
+                .createNativeQuery("select cast(create_posts_partition(cast(:month as date)) as varchar)")
+                .setParameter("month", month.atDay(1))
+                .getSingleResult();
+    }
+
+    /**
+     * Persists a chunk of imported or ingested posts in its own transaction and fans them out to
+     * the followers' timelines. The persistence context is flushed and cleared before commit so
+     * a long import never holds more than one chunk of entities.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    @Traced
+    public void persistChunk(List<Post> posts) {
+        // saved rather than persisted: posts ingested asynchronously already carry their id
+        Session session = getEntityManager().unwrap(Session.class);
+        for (Post post : posts) {
+            post.setUser(getEntityManager().getReference(User.class, post.getUser().getId()));
+            session.save(post);
+        }
+        flush();
+
+        Map<Long, List<Post>> postsByAuthor = posts.stream()
+                .collect(Collectors.groupingBy(post -> post.getUser().getId()));
+        postsByAuthor.forEach((authorId, authorPosts) -> {
+            timelineRepository.fanOut(authorId, authorPosts.stream().map(Post::getId).collect(Collectors.toList()));
+            userRepository.updatePostsCount(authorId, authorPosts.size());
+            authorPosts.forEach(outboxRepository::postCreated);
+            postsChanged.fire(new PostsChanged(authorId));
+        });
+
+        // the outbox events too
+        flush();
+        getEntityManager().clear();
+    }
 }
@@ -0,0 +1,13 @@
+package io.github.lucasgomescosta.quarkussocial.domain.repository;
+
+import lombok.Data;
+
+/**
+ * Fired when posts are added for an author. Observers that care about committed state observe it
+ * with {@code TransactionPhase.AFTER_SUCCESS}.
+ */
+@Data
+public class PostsChanged {
+
+    private final Long authorId;
+}
@@ -0,0 +1,268 @@
+package io.github.lucasgomescosta.quarkussocial.domain.repository;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.domain.model.TimelineEntry;
+import io.github.lucasgomescosta.quarkussocial.domain.model.TimelineEntryId;
+import io.github.lucasgomescosta.quarkussocial.routing.ShardRouter;
+import io.github.lucasgomescosta.quarkussocial.routing.ShardedQueries;
+import io.github.lucasgomescosta.quarkussocial.tracing.Traced;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import io.quarkus.panache.common.Parameters;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.query.NativeQuery;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@ApplicationScoped
+public class TimelineRepository implements PanacheRepositoryBase<TimelineEntry, TimelineEntryId> {
+
+    private static final Comparator<Post> NEWEST_FIRST = Comparator
+            .comparing(Post::getDateTime)
+            .thenComparing(Post::getId)
+            .reversed();
+
+    @Inject
+    FollowerRepository followerRepository;
+
+    @Inject
+    UserRepository userRepository;
+
+    @Inject
+    ShardRouter router;
+
+    @Inject
+    ShardedQueries shardedQueries;
+
+    @ConfigProperty(name = "social.feed.fan-out.max-followers", defaultValue = "10000")
+    long fanOutMaxFollowers;
+
+    @ConfigProperty(name = "social.feed.backfill-size", defaultValue = "20")
+    int backfillSize;
+
+    @ConfigProperty(name = "social.posts.recent-window-days", defaultValue = "90")
+    int recentWindowDays;
+
+    /**
+     * Pushes a freshly persisted post into the timeline of every follower of its author.
+     * Authors with more than {@code social.feed.fan-out.max-followers} followers are skipped,
+     * their posts are merged into the feed at read time instead, like for followers on other
+     * shards.
+     */
+    @Traced
+    public void fanOut(Post post) {
+        Long authorId = post.getUser().getId();
+        if(isFanOutOnRead(authorId)) {
+            return;
+        }
+
+        getEntityManager()
+                .createNativeQuery("insert into timelines (user_id, post_id, dateTime) " +
+                        "select f.follower_id, :postId, :dateTime from followers f where f.user_id = :authorId" +
+                        localFollowers())
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(TimelineEntry.class)
+                .setParameter("postId", post.getId())
+                .setParameter("dateTime", post.getDateTime())
+                .setParameter("authorId", authorId)
+                .executeUpdate();
+    }
+
+    /**
+     * Bulk variant of {@link #fanOut(Post)} for already flushed posts of a single author.
+     */
+    @Traced
+    public void fanOut(Long authorId, Collection<Long> postIds) {
+        if(postIds.isEmpty() || isFanOutOnRead(authorId)) {
+            return;
+        }
+
+        getEntityManager()
+                .createNativeQuery("insert into timelines (user_id, post_id, dateTime) " +
+                        "select f.follower_id, p.id, p.dateTime from followers f join posts p on p.user_id = f.user_id " +
+                        "where f.user_id = :authorId and p.id in (:postIds)" +
+                        localFollowers())
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(TimelineEntry.class)
+                .setParameter("authorId", authorId)
+                .setParameter("postIds", postIds)
+                .executeUpdate();
+    }
+
+    /**
+     * Copies the latest posts of a newly followed author into the follower's timeline,
+     * so the feed does not look empty until the author posts again.
+     */
+    @Traced
+    public void backfill(Long followerId, Long authorId) {
+        if(isFanOutOnRead(authorId)) {
+            return;
+        }
+
+        getEntityManager()
+                .createNativeQuery("insert into timelines (user_id, post_id, dateTime) " +
+                        "select :followerId, p.id, p.dateTime from posts p where p.user_id = :authorId " +
+                        "order by p.dateTime desc, p.id desc limit :limit")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(TimelineEntry.class)
+                .setParameter("followerId", followerId)
+                .setParameter("authorId", authorId)
+                .setParameter("limit", backfillSize)
+                .executeUpdate();
+    }
+
+    /**
+     * Called once a follower of {@code authorId} is gone. An author whose followers count has just
+     * dropped back to {@code social.feed.fan-out.max-followers} is fanned out on write again, but
+     * the posts it made while it was above are in no timeline; like for a new follow, its latest
+     * {@code social.feed.backfill-size} posts are copied into the timelines that miss them.
+     * <p>
+     * Crossing upwards needs nothing: the posts already in the timelines stay there and
+     * {@link #findFeedPage} drops them when it merges the same posts at read time.
+     */
+    @Traced
+    public void unfollowed(Long authorId) {
+        if(userRepository.findFollowersCount(authorId) != fanOutMaxFollowers) {
+            return;
+        }
+
+        getEntityManager()
+                .createNativeQuery("insert into timelines (user_id, post_id, dateTime) " +
+                        "select f.follower_id, p.id, p.dateTime from followers f cross join " +
+                        "(select id, dateTime from posts where user_id = :authorId " +
+                        "order by dateTime desc, id desc limit :limit) p " +
+                        "where f.user_id = :authorId and not exists " +
+                        "(select 1 from timelines t where t.user_id = f.follower_id and t.post_id = p.id)" +
+                        localFollowers())
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(TimelineEntry.class)
+                .setParameter("authorId", authorId)
+                .setParameter("limit", backfillSize)
+                .executeUpdate();
+    }
+
+    @Traced
+    public void deleteByFollowerAndAuthor(Long followerId, Long authorId) {
+        var params = Parameters
+                .with("followerId", followerId)
+                .and("authorId", authorId)
+                .map();
+
+        delete("userId = :followerId and postId in (select p.id from Post p where p.user.id = :authorId)", params);
+    }
+
+    /**
+     * A page of the home feed of {@code userId}, newest first: the materialized timeline merged
+     * with the posts of followed authors that are served by fan-out on read, or live on another
+     * shard, each post once. The request must be routed to the shard of {@code userId}.
+     */
+    @Traced
+    public List<Post> findFeedPage(Long userId, LocalDateTime beforeDateTime, Long beforeId, int limit) {
+        boolean seek = beforeDateTime != null && beforeId != null;
+
+        var timelineQuery = getEntityManager()
+                // the copied dateTime lets each post be looked up in its own partition of posts
+                .createQuery("select p from TimelineEntry t, Post p join fetch p.user " +
+                        "where p.id = t.postId and p.dateTime = t.dateTime and t.userId = :userId" +
+                        (seek ? " and (t.dateTime < :dateTime or (t.dateTime = :dateTime and t.postId < :id))" : "") +
+                        " order by t.dateTime desc, t.postId desc", Post.class)
+                .setParameter("userId", userId)
+                .setMaxResults(limit);
+        if(seek) {
+            timelineQuery.setParameter("dateTime", beforeDateTime).setParameter("id", beforeId);
+        }
+        List<Post> feed = new ArrayList<>(timelineQuery.getResultList());
+
+        List<Long> fanOutOnReadAuthors = followerRepository.findFollowedWithMoreFollowersThan(userId, fanOutMaxFollowers);
+        Map<String, List<Long>> authorsElsewhere = followerRepository.findFollowedOnOtherShards(userId)
+                .stream()
+                .collect(Collectors.groupingBy(router::shardOf));
+        if(fanOutOnReadAuthors.isEmpty() && authorsElsewhere.isEmpty()) {
+            return feed;
+        }
+
+        if(!fanOutOnReadAuthors.isEmpty()) {
+            feed.addAll(findAuthorsPosts(getEntityManager(), fanOutOnReadAuthors, beforeDateTime, beforeId, limit));
+        }
+        feed.addAll(shardedQueries.scatter(authorsElsewhere, (entityManager, authors) ->
+                findAuthorsPosts(entityManager, authors, beforeDateTime, beforeId, limit)));
+
+        // an author that went above the threshold still has its older posts in the timelines
+        feed.sort(NEWEST_FIRST);
+        Map<Long, Post> distinct = new LinkedHashMap<>();
+        for (Post post : feed) {
+            distinct.putIfAbsent(post.getId(), post);
+        }
+        return distinct.values().stream().limit(limit).collect(Collectors.toList());
+    }
+
+    /**
+     * Up to {@code limit} posts of {@code authors} newest first, before the position when given.
+     * Like PostRepository.findPageByUser: the recent months first, the older ones only for a short
+     * page.
+     */
+    private List<Post> findAuthorsPosts(EntityManager entityManager, List<Long> authors,
+                                        LocalDateTime beforeDateTime, Long beforeId, int limit) {
+        boolean seek = beforeDateTime != null && beforeId != null;
+        LocalDateTime since = (seek ? beforeDateTime : LocalDateTime.now()).minusDays(recentWindowDays);
+        List<Post> posts = findAuthorsPage(entityManager, authors, since, seek ? beforeDateTime : null, beforeId, limit);
+        if(posts.size() < limit) {
+            posts.addAll(findAuthorsPage(entityManager, authors, null, since, null, limit - posts.size()));
+        }
+        return posts;
+    }
+
+    /**
+     * Posts of {@code authors} newest first, from {@code since} (inclusive) up to {@code until}
+     * (exclusive, or before post {@code untilId} at the same dateTime when given). Either bound
+     * may be null.
+     */
+    private static List<Post> findAuthorsPage(EntityManager entityManager, List<Long> authors,
+                                              LocalDateTime since, LocalDateTime until, Long untilId, int limit) {
+        boolean seek = until != null && untilId != null;
+        var query = entityManager
+                .createQuery("select p from Post p join fetch p.user " +
+                        "where p.user.id in :authors" +
+                        (since != null ? " and p.dateTime >= :since" : "") +
+                        (seek ? " and p.dateTime <= :dateTime and (p.dateTime < :dateTime or (p.dateTime = :dateTime and p.id < :id))"
+                                : until != null ? " and p.dateTime < :dateTime" : "") +
+                        " order by p.dateTime desc, p.id desc", Post.class)
+                .setParameter("authors", authors)
+                .setMaxResults(limit);
+        if(since != null) {
+            query.setParameter("since", since);
+        }
+        if(until != null) {
+            query.setParameter("dateTime", until);
+        }
+        if(seek) {
+            query.setParameter("id", untilId);
+        }
+        return new ArrayList<>(query.getResultList());
+    }
+
+    /**
+     * Timelines are only kept on the shard of their user: followers on other shards, whose edge
+     * is stored here too, merge the author's posts at read time instead.
+     */
+    private String localFollowers() {
+        return router.isSharded() ? " and exists (select 1 from users u where u.id = f.follower_id)" : "";
+    }
+
+    /**
+     * Same rule as {@link FollowerRepository#findFollowedWithMoreFollowersThan} on the read side:
+     * both look at users.followers_count, so a post is either in the timelines or merged at read.
+     */
+    private boolean isFanOutOnRead(Long authorId) {
+        return userRepository.findFollowersCount(authorId) > fanOutMaxFollowers;
+    }
+}
@@ -1,11 +1,255 @@
 package io.github.lucasgomescosta.quarkussocial.domain.repository;
 
 import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.routing.RoutingConfiguration;
+import io.github.lucasgomescosta.quarkussocial.routing.ShardRouter;
+import io.github.lucasgomescosta.quarkussocial.routing.ShardedQueries;
+import io.github.lucasgomescosta.quarkussocial.routing.UserIdAllocator;
+import io.github.lucasgomescosta.quarkussocial.tracing.Traced;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import org.hibernate.Session;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.NativeQuery;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.Query;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class UserRepository implements PanacheRepository<User> {
 
+    private static final Sort BY_ID = Sort.by("id");
+    private static final String COUNTERS_QUERY_SPACE = "users_counters";
+
+    @Inject
+    ShardRouter router;
+
+    @Inject
+    ShardedQueries shardedQueries;
+
+    @Inject
+    UserIdAllocator idAllocator;
+
+    @Inject
+    RoutingConfiguration configuration;
+
+    /**
+     * Saves a new user on its shard. With several shards the id is taken up front and the request
+     * routed to the shard it hashes to, so this must be the first database access of the request.
+     */
+    @Traced
+    public void create(User user) {
+        if(!router.isSharded()) {
+            persist(user);
+            return;
+        }
+        user.setId(idAllocator.next());
+        router.route(user.getId());
+        getEntityManager().unwrap(Session.class).save(user);
+    }
+
+    /**
+     * The user with this id, read from its own shard whichever shard the request is on.
+     */
+    @Traced
+    public User findByIdOnShard(Long id) {
+        return shardedQueries.onShard(router.shardOf(id), entityManager -> entityManager.find(User.class, id));
+    }
+
+    @Traced
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        if(ids.isEmpty()) {
+            return Set.of();
+        }
+        Map<String, List<Long>> idsByShard = ids.stream().collect(Collectors.groupingBy(router::shardOf));
+        return new HashSet<>(shardedQueries.scatter(idsByShard, (entityManager, shardIds) -> entityManager
+                .createQuery("select u.id from User u where u.id in :ids", Long.class)
+                .setParameter("ids", shardIds)
+                .getResultList()));
+    }
+
+    /**
+     * The followers count of a user as it is in the database, not as cached.
+     */
+    @Traced
+    public long findFollowersCount(Long userId) {
+        return getEntityManager()
+                .createQuery("select u.followersCount from User u where u.id = :id", Long.class)
+                .setParameter("id", userId)
+                .getResultStream()
+                .findFirst()
+                .orElse(0L);
+    }
+
+    /**
+     * The posts count of a user as it is on the primary of its shard, also during a read-only
+     * request, to tell whether the replica has caught up with it.
+     */
+    @Traced
+    public long findPostsCountOnPrimary(Long userId) {
+        return shardedQueries.onPrimary(router.shardOf(userId), entityManager -> entityManager
+                .createQuery("select u.postsCount from User u where u.id = :id", Long.class)
+                .setParameter("id", userId)
+                .getResultStream()
+                .findFirst()
+                .orElse(0L));
+    }
+
+    /**
+     * Adds {@code delta} to the followers count of {@code userId} and to the following count of
+     * {@code followerId}, and bumps the followers version of {@code userId}. Both rows change in one statement, so concurrent follows between the
+     * same two users lock them in the same order.
+     */
+    @Traced
+    public void updateFollowCounters(Long userId, Long followerId, long delta) {
+        var query = getEntityManager()
+                .createNativeQuery("update users set " +
+                        "followers_count = followers_count + case when id = :userId then :delta else 0 end, " +
+                        "following_count = following_count + case when id = :followerId then :delta else 0 end, " +
+                        "followers_version = followers_version + case when id = :userId then 1 else 0 end " +
+                        "where id in (:userId, :followerId)")
+                .setParameter("userId", userId)
+                .setParameter("followerId", followerId)
+                .setParameter("delta", delta);
+        updateCounters(query, userId, followerId);
+    }
+
+    @Traced
+    public void updatePostsCount(Long userId, long delta) {
+        var query = getEntityManager()
+                .createNativeQuery("update users set posts_count = posts_count + :delta where id = :userId")
+                .setParameter("userId", userId)
+                .setParameter("delta", delta);
+        updateCounters(query, userId);
+    }
+
+    /**
+     * A bulk update of users would drop the whole User cache region, which counters change far
+     * too often for. The update is declared on a query space no cache depends on and only the
+     * touched users are evicted instead.
+     */
+    private void updateCounters(Query query, Long... userIds) {
+        query.unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(COUNTERS_QUERY_SPACE)
+                .executeUpdate();
+        evict(userIds);
+    }
+
+    /**
+     * Evicts users from the second-level cache now and again once the current transaction
+     * completes, so neither a concurrent reader nor this transaction's own inserts and updates
+     * (which are put in the cache on completion) leave a stale copy behind.
+     */
+    public void evict(Long... userIds) {
+        evictFromCache(getEntityManager().getEntityManagerFactory().unwrap(SessionFactoryImplementor.class), userIds);
+
+        // registered once the commit has flushed the session, so it completes after the cache
+        // puts of every flushed action, without flushing the caller's session early
+        getEntityManager().unwrap(SessionImplementor.class)
+                .getActionQueue()
+                .registerProcess((BeforeTransactionCompletionProcess) session -> session.getActionQueue()
+                        .registerProcess((success, completed) -> evictFromCache(completed.getFactory(), userIds)));
+    }
+
+    /**
+     * Cache keys carry the tenant, that is the datasource the entity was read from, and
+     * {@link javax.persistence.Cache#evict} only builds tenant-less keys: evict the copy of each
+     * datasource, see {@link RoutingConfiguration#getTenants()}.
+     */
+    private void evictFromCache(SessionFactoryImplementor factory, Long[] userIds) {
+        EntityPersister persister = factory.getMetamodel().entityPersister(User.class);
+        EntityDataAccess access = factory.getCache().getEntityRegionAccess(persister.getNavigableRole());
+        if(access == null) {
+            return;
+        }
+        for (Long userId : userIds) {
+            for (String tenant : configuration.getTenants()) {
+                access.evict(access.generateCacheKey(userId, persister, factory, tenant));
+            }
+        }
+    }
+
+    /**
+     * Keyset page of users in id order, starting after {@code afterId} (from the first when null).
+     * Every shard returns its own first {@code limit} users, merged here.
+     */
+    @Traced
+    public List<User> findPage(Long afterId, int limit) {
+        if(!router.isSharded()) {
+            PanacheQuery<User> query = afterId == null
+                    ? findAll(BY_ID)
+                    : find("id > ?1", BY_ID, afterId);
+            return query.range(0, limit - 1).list();
+        }
+
+        return shardedQueries.scatter(entityManager -> entityManager
+                        .createQuery("select u from User u where u.id > :afterId order by u.id", User.class)
+                        .setParameter("afterId", afterId == null ? Long.MIN_VALUE : afterId)
+                        .setMaxResults(limit)
+                        .getResultList())
+                .stream()
+                .sorted(Comparator.comparing(User::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Every user in id order, read from a cursor {@code fetchSize} rows at a time. Must be
+     * consumed inside a transaction; entities are read-only and should be detached once used.
+     */
+    @Traced
+    public Stream<User> streamAllById(int fetchSize) {
+        return findAll(BY_ID)
+                .withHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .withHint(QueryHints.HINT_READONLY, true)
+                .stream();
+    }
+
+    @Traced
+    public List<Long> findIdsAfter(Long afterId, int limit) {
+        return getEntityManager()
+                .createQuery("select u.id from User u where u.id > :afterId order by u.id", Long.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Sets the counters of the users with ids in [fromId, toId] to the actual counts, touching
+     * only the rows that differ.
+     *
+     * @return the number of repaired users
+     */
+    @Traced
+    public int reconcileCounters(Long fromId, Long toId) {
+        return getEntityManager()
+                .createNativeQuery("update users set " +
+                        "followers_count = (select count(*) from followers f where f.user_id = users.id), " +
+                        "following_count = (select count(*) from followers f where f.follower_id = users.id), " +
+                        "posts_count = (select count(*) from posts p where p.user_id = users.id) " +
+                        "where id between :fromId and :toId and (" +
+                        "followers_count <> (select count(*) from followers f where f.user_id = users.id) or " +
+                        "following_count <> (select count(*) from followers f where f.follower_id = users.id) or " +
+                        "posts_count <> (select count(*) from posts p where p.user_id = users.id))")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(User.class)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .executeUpdate();
+    }
 }
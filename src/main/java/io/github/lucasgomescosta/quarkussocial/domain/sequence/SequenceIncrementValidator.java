@@ -0,0 +1,64 @@
+package io.github.lucasgomescosta.quarkussocial.domain.sequence;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Sequences;
+import io.github.lucasgomescosta.quarkussocial.routing.ShardRouter;
+import io.quarkus.runtime.StartupEvent;
+import org.jboss.logging.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.control.ActivateRequestContext;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * Fails startup when the increment of a pooled-lo sequence differs from
+ * {@value Sequences#ALLOCATION_SIZE_PROPERTY}. The optimizer hands out {@code allocation-size} ids
+ * from every {@code nextval}: with a smaller increment two instances would hand out the same
+ * ids, with a larger one ids are skipped. A sequence that does not exist yet is left alone.
+ */
+@ApplicationScoped
+public class SequenceIncrementValidator {
+
+    private static final Logger LOG = Logger.getLogger(SequenceIncrementValidator.class);
+    private static final List<String> POOLED_SEQUENCES = List.of("users_seq", "posts_seq");
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    ShardRouter router;
+
+    void onStart(@Observes StartupEvent event) {
+        validate();
+    }
+
+    @ActivateRequestContext
+    public void validate() {
+        int allocationSize = Sequences.allocationSize();
+        for (String shard : router.getShards()) {
+            router.withShard(shard, () -> {
+                for (String sequence : POOLED_SEQUENCES) {
+                    Long increment = findIncrement(sequence);
+                    if(increment == null) {
+                        LOG.warnf("Sequence %s not found on shard %s, its increment is not checked", sequence, shard);
+                    } else if(increment != allocationSize) {
+                        throw new IllegalStateException(String.format(
+                                "Sequence %s on shard %s has increment %d but %s is %d, change them together",
+                                sequence, shard, increment, Sequences.ALLOCATION_SIZE_PROPERTY, allocationSize));
+                    }
+                }
+            });
+        }
+    }
+
+    private Long findIncrement(String sequence) {
+        List<?> increments = entityManager
+                .createNativeQuery("select cast(increment as bigint) from information_schema.sequences " +
+                        "where lower(sequence_name) = :sequence")
+                .setParameter("sequence", sequence)
+                .getResultList();
+        return increments.isEmpty() ? null : ((Number) increments.get(0)).longValue();
+    }
+}
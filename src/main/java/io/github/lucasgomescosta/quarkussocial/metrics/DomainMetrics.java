@@ -0,0 +1,37 @@
+package io.github.lucasgomescosta.quarkussocial.metrics;
+
+import io.github.lucasgomescosta.quarkussocial.domain.graph.FollowEdgeChanged;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.PostsChanged;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+
+/**
+ * Counts committed domain changes: follows, unfollows and post batches per author.
+ */
+@ApplicationScoped
+public class DomainMetrics {
+
+    private final Counter follows;
+    private final Counter unfollows;
+    private final Counter postBatches;
+
+    @Inject
+    public DomainMetrics(MeterRegistry registry) {
+        this.follows = registry.counter("social.follow.edges", "change", "follow");
+        this.unfollows = registry.counter("social.follow.edges", "change", "unfollow");
+        this.postBatches = registry.counter("social.posts.changes");
+    }
+
+    void onFollowEdgeChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) FollowEdgeChanged event) {
+        (event.isFollows() ? follows : unfollows).increment();
+    }
+
+    void onPostsChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) PostsChanged event) {
+        postBatches.increment();
+    }
+}
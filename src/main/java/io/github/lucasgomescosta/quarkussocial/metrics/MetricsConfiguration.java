@@ -0,0 +1,37 @@
+package io.github.lucasgomescosta.quarkussocial.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+
+import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
+
+/**
+ * Publishes percentile histograms for the request and data access timers, so p50/p99/p999 can
+ * be aggregated across instances in Prometheus.
+ */
+public class MetricsConfiguration {
+
+    public static final String REST_TIMER = "social.rest";
+    public static final String REPOSITORY_TIMER = "social.repository";
+
+    @Produces
+    @Singleton
+    public MeterFilter percentileHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                String name = id.getName();
+                if(name.startsWith(REST_TIMER) || name.startsWith(REPOSITORY_TIMER)
+                        || name.startsWith("http.server.requests") || name.startsWith("agroal")) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+}
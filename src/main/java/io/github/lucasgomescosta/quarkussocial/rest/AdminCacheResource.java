@@ -0,0 +1,64 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.github.lucasgomescosta.quarkussocial.domain.graph.FollowGraphCache;
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.CacheRegionStats;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.CacheStatsResponse;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Hit/miss counters of the Hibernate second-level cache (User entities, cached queries) and of
+ * the in-memory follow graph.
+ */
+@Path("/admin/cache")
+@Produces(MediaType.APPLICATION_JSON)
+public class AdminCacheResource {
+
+    private SessionFactory sessionFactory;
+    private FollowGraphCache followGraph;
+
+    @Inject
+    public AdminCacheResource(SessionFactory sessionFactory, FollowGraphCache followGraph) {
+        this.sessionFactory = sessionFactory;
+        this.followGraph = followGraph;
+    }
+
+    @GET
+    public Response cacheStats() {
+        Statistics statistics = sessionFactory.getStatistics();
+
+        var users = new CacheRegionStats();
+        CacheRegionStatistics userRegion = statistics.getDomainDataRegionStatistics(User.class.getName());
+        if(userRegion != null) {
+            users.setHits(userRegion.getHitCount());
+            users.setMisses(userRegion.getMissCount());
+            users.setPuts(userRegion.getPutCount());
+            users.setSize(userRegion.getElementCountInMemory());
+        }
+
+        var queries = new CacheRegionStats();
+        queries.setHits(statistics.getQueryCacheHitCount());
+        queries.setMisses(statistics.getQueryCacheMissCount());
+        queries.setPuts(statistics.getQueryCachePutCount());
+
+        var graph = new CacheRegionStats();
+        graph.setHits(followGraph.getHits());
+        graph.setMisses(followGraph.getMisses());
+        graph.setSize(followGraph.getSize());
+
+        var response = new CacheStatsResponse();
+        response.setUsers(users);
+        response.setQueries(queries);
+        response.setFollowGraph(graph);
+        return Response.ok(response).build();
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.github.lucasgomescosta.quarkussocial.metrics.MetricsConfiguration;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.BulkPostResponse;
+import io.github.lucasgomescosta.quarkussocial.tracing.Traced;
+import io.micrometer.core.annotation.Timed;
+
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.InputStream;
+
+/**
+ * Cross-user bulk import, every item carries its own {@code userId}.
+ */
+@Path("/admin/posts/bulk")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+public class AdminPostResource {
+
+    private PostBulkImporter bulkImporter;
+
+    @Inject
+    public AdminPostResource(PostBulkImporter bulkImporter) {
+        this.bulkImporter = bulkImporter;
+    }
+
+    @POST
+    @Timed(MetricsConfiguration.REST_TIMER)
+    @Traced
+    public Response bulkSavePosts(InputStream body) {
+        BulkPostResponse report = bulkImporter.importJsonArray(null, body);
+        return Response.ok(report).build();
+    }
+
+    @POST
+    @Consumes(PostBulkImporter.NDJSON)
+    @Timed(MetricsConfiguration.REST_TIMER)
+    @Traced
+    public Response bulkSavePostsNdjson(InputStream body) {
+        BulkPostResponse report = bulkImporter.importNdjson(null, body);
+        return Response.ok(report).build();
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.stream.Collectors;
+
+/**
+ * Helpers for answering {@code If-None-Match} / {@code If-Modified-Since} from a version token
+ * computed without loading the collection being listed.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * Weak entity tag made of the version parts and the query parameters that shape the page.
+     */
+    static EntityTag tag(Object... parts) {
+        String value = Arrays.stream(parts)
+                .map(part -> part == null ? "" : part.toString())
+                .collect(Collectors.joining("-"));
+        return new EntityTag(value, true);
+    }
+
+    /**
+     * HTTP dates have a one second resolution, so the time is truncated for comparisons with
+     * {@code If-Modified-Since} to work.
+     */
+    static Date lastModified(LocalDateTime dateTime) {
+        if(dateTime == null) {
+            return null;
+        }
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).truncatedTo(ChronoUnit.SECONDS).toInstant());
+    }
+
+    /**
+     * @return a 304 response when the client's copy is still current, null otherwise
+     */
+    static Response notModified(Request request, EntityTag tag, Date lastModified) {
+        Response.ResponseBuilder builder = lastModified == null
+                ? request.evaluatePreconditions(tag)
+                : request.evaluatePreconditions(lastModified, tag);
+        if(builder == null) {
+            return null;
+        }
+        return builder.tag(tag).lastModified(lastModified).build();
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.TimelineRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.metrics.MetricsConfiguration;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.FeedPageResponse;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.FeedPostResponse;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.PostCursor;
+import io.github.lucasgomescosta.quarkussocial.tracing.Traced;
+import io.micrometer.core.annotation.Timed;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.inject.Inject;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Path("/users/{userId}/feed")
+@Produces(MediaType.APPLICATION_JSON)
+public class FeedResource {
+
+    private UserRepository userRepository;
+    private TimelineRepository timelineRepository;
+    private int defaultPageSize;
+    private int maxPageSize;
+
+    @Inject
+    public FeedResource(
+            UserRepository userRepository,
+            TimelineRepository timelineRepository,
+            @ConfigProperty(name = "social.posts.page-size.default", defaultValue = "20") int defaultPageSize,
+            @ConfigProperty(name = "social.posts.page-size.max", defaultValue = "100") int maxPageSize) {
+        this.userRepository = userRepository;
+        this.timelineRepository = timelineRepository;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @GET
+    @Timed(MetricsConfiguration.REST_TIMER)
+    @Traced
+    public Response feed(
+            @PathParam("userId") Long userId,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("before") String before) {
+
+        User user = userRepository.findById(userId);
+        if(user == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        if(limit != null && limit < 1) {
+            return Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity("limit must be greater than zero")
+                    .build();
+        }
+        int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        PostCursor cursor = null;
+        if(before != null) {
+            try {
+                cursor = PostCursor.decode(before);
+            } catch (IllegalArgumentException e) {
+                return Response
+                        .status(Response.Status.BAD_REQUEST)
+                        .entity("Invalid cursor")
+                        .build();
+            }
+        }
+
+        List<Post> list = timelineRepository.findFeedPage(
+                userId,
+                cursor == null ? null : cursor.getDateTime(),
+                cursor == null ? null : cursor.getId(),
+                pageSize + 1);
+
+        boolean hasNext = list.size() > pageSize;
+        if(hasNext) {
+            list = list.subList(0, pageSize);
+        }
+
+        var page = new FeedPageResponse();
+        page.setContent(list.stream().map(FeedPostResponse::fromEntity).collect(Collectors.toList()));
+        if(hasNext) {
+            page.setNext(PostCursor.fromEntity(list.get(list.size() - 1)).encode());
+        }
+
+        return Response.ok(page).build();
+    }
+}
@@ -1,19 +1,25 @@
 package io.github.lucasgomescosta.quarkussocial.rest;
 
-import io.github.lucasgomescosta.quarkussocial.domain.model.Follower;
 import io.github.lucasgomescosta.quarkussocial.domain.model.User;
 import io.github.lucasgomescosta.quarkussocial.domain.repository.FollowerRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.TimelineRepository;
 import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.metrics.MetricsConfiguration;
 import io.github.lucasgomescosta.quarkussocial.rest.dto.FollowerRequest;
-import io.github.lucasgomescosta.quarkussocial.rest.dto.FollowerResponse;
 import io.github.lucasgomescosta.quarkussocial.rest.dto.FollowersPerUserResponse;
+import io.github.lucasgomescosta.quarkussocial.routing.ShardRouter;
+import io.github.lucasgomescosta.quarkussocial.tracing.Traced;
+import io.micrometer.core.annotation.Timed;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import javax.inject.Inject;
 import javax.transaction.Transactional;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
-import java.util.stream.Collectors;
 
 @Path("/users/{userId}/followers")
 @Consumes(MediaType.APPLICATION_JSON)
@@ -22,15 +28,31 @@ public class FollowerResource {
 
     private FollowerRepository repository;
     private UserRepository userRepository;
+    private TimelineRepository timelineRepository;
+    private ShardRouter shardRouter;
+    private int defaultPageSize;
+    private int maxPageSize;
 
     @Inject
-    public FollowerResource(FollowerRepository repository, UserRepository userRepository) {
+    public FollowerResource(
+            FollowerRepository repository,
+            UserRepository userRepository,
+            TimelineRepository timelineRepository,
+            ShardRouter shardRouter,
+            @ConfigProperty(name = "social.followers.page-size.default", defaultValue = "100") int defaultPageSize,
+            @ConfigProperty(name = "social.followers.page-size.max", defaultValue = "1000") int maxPageSize) {
         this.repository = repository;
         this.userRepository = userRepository;
+        this.timelineRepository = timelineRepository;
+        this.shardRouter = shardRouter;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @PUT
     @Transactional
+    @Timed(MetricsConfiguration.REST_TIMER)
+    @Traced
     public Response followerUser(
             @PathParam("userId") Long userId, FollowerRequest followerRequest) {
 
@@ -45,16 +67,22 @@ public class FollowerResource {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
 
-        var follower = userRepository.findById(followerRequest.getFollowerId());
-
-        boolean follows = repository.follows(follower, user);
+        var follower = userRepository.findByIdOnShard(followerRequest.getFollowerId());
+        if(follower == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
 
-        if(!follows) {
-            var entity = new Follower();
-            entity.setUser(user);
-            entity.setFollower(follower);
+        // the follower's half first, on its shard: a retry completes a follow that failed in between
+        String followerShard = shardRouter.shardOf(follower.getId());
+        boolean sameShard = followerShard.equals(shardRouter.shardOf(userId));
+        if(!sameShard) {
+            shardRouter.withShard(followerShard, () -> repository.followOnFollowerShard(userId, follower.getId()));
+        }
 
-            repository.persist(entity);
+        boolean followed = repository.follow(user, follower);
+        // the feed of a follower on another shard merges the user's posts at read time
+        if(followed && sameShard) {
+            timelineRepository.backfill(follower.getId(), user.getId());
         }
 
         return Response.status(Response.Status.NO_CONTENT).build();
@@ -62,27 +90,56 @@ public class FollowerResource {
 
 
     @GET
+    @Timed(MetricsConfiguration.REST_TIMER)
+    @Traced
     public Response listFollowers(
             @PathParam("userId") Long userId,
-            @HeaderParam("followerId") Long followerId) {
+            @QueryParam("limit") Integer limit,
+            @QueryParam("after") Long after,
+            @QueryParam("countOnly") boolean countOnly,
+            @Context Request request) {
 
         var user = userRepository.findById(userId);
         if(user == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
 
-        var list = repository.findByUser(userId);
+        if(limit != null && limit < 1) {
+            return Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity("limit must be greater than zero")
+                    .build();
+        }
+        int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        EntityTag tag = ConditionalGet.tag(
+                user.getFollowersVersion(), user.getFollowersCount(), pageSize, after, countOnly);
+        Response notModified = ConditionalGet.notModified(request, tag, null);
+        if(notModified != null) {
+            return notModified;
+        }
+
         FollowersPerUserResponse userResponse = new FollowersPerUserResponse();
-        userResponse.setFollowersCount(list.size());
+        userResponse.setFollowersCount(user.getFollowersCount());
+        if(countOnly) {
+            return Response.ok(userResponse).tag(tag).build();
+        }
 
-        var followerList = list.stream().map(FollowerResponse::new ).collect(Collectors.toList());
+        // one extra row tells whether there is a next page
+        var followerList = repository.findFollowerResponsesByUser(userId, after, pageSize + 1);
+        if(followerList.size() > pageSize) {
+            followerList = followerList.subList(0, pageSize);
+            userResponse.setNext(followerList.get(pageSize - 1).getId());
+        }
 
         userResponse.setContent(followerList);
-        return Response.ok(userResponse).build();
+        return Response.ok(userResponse).tag(tag).build();
     }
 
     @DELETE
     @Transactional
+    @Timed(MetricsConfiguration.REST_TIMER)
+    @Traced
     public Response unFollowerUser(
             @PathParam("userId") Long userId,
             @QueryParam("followerId") Long followerId) {
@@ -92,7 +149,14 @@ public class FollowerResource {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
 
-        repository.deleteByFollowerAndUser(followerId, userId);
+        if(followerId != null && !shardRouter.shardOf(followerId).equals(shardRouter.shardOf(userId))) {
+            shardRouter.withShard(shardRouter.shardOf(followerId), () -> repository.unfollowOnFollowerShard(userId, followerId));
+        }
+
+        if(repository.deleteByFollowerAndUser(followerId, userId)) {
+            timelineRepository.deleteByFollowerAndAuthor(followerId, userId);
+            timelineRepository.unfollowed(userId);
+        }
 
         return Response.status(Response.Status.NO_CONTENT).build();
     }
@@ -0,0 +1,259 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.PostRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.BulkLineError;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.BulkPostResponse;
+import io.github.lucasgomescosta.quarkussocial.routing.ShardRouter;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParser;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads a bulk post payload as a stream, one item at a time, and writes it in chunks of
+ * {@code social.posts.bulk.chunk-size} posts, so memory use does not grow with the payload.
+ * Items look like {@code {"text": "...", "dateTime": "...", "userId": 1}}; {@code userId} is
+ * only read when importing across users.
+ */
+@ApplicationScoped
+public class PostBulkImporter {
+
+    private static final Logger LOG = Logger.getLogger(PostBulkImporter.class);
+
+    public static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_TEXT_LENGTH = 150;
+
+    @Inject
+    PostRepository postRepository;
+
+    @Inject
+    UserRepository userRepository;
+
+    @Inject
+    ShardRouter router;
+
+    @ConfigProperty(name = "social.posts.bulk.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    @ConfigProperty(name = "social.posts.bulk.max-reported-errors", defaultValue = "100")
+    int maxReportedErrors;
+
+    /**
+     * Imports newline delimited JSON, one post per line. A malformed line is reported and skipped.
+     *
+     * @param userId the author of every post, or null to read it from each line
+     */
+    public BulkPostResponse importNdjson(Long userId, InputStream body) {
+        var batch = new Import(userId);
+        try (var reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if(line.isBlank()) {
+                    continue;
+                }
+                try (var jsonReader = Json.createReader(new StringReader(line))) {
+                    batch.add(lineNumber, jsonReader.readObject());
+                } catch (JsonException | IllegalStateException e) {
+                    batch.reject(lineNumber, "Malformed JSON object");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return batch.finish();
+    }
+
+    /**
+     * Imports a JSON array of posts; the line of an error is the position of the item in the array.
+     * A syntax error stops the import, the items read before it are kept.
+     *
+     * @param userId the author of every post, or null to read it from each item
+     */
+    public BulkPostResponse importJsonArray(Long userId, InputStream body) {
+        var batch = new Import(userId);
+        // the item being read, so a syntax error is reported where it is even after non-object items
+        long item = 0;
+        try (JsonParser parser = Json.createParser(body)) {
+            if(!parser.hasNext() || parser.next() != JsonParser.Event.START_ARRAY) {
+                batch.reject(0, "Expected a JSON array");
+                return batch.finish();
+            }
+
+            while (parser.hasNext()) {
+                item++;
+                JsonParser.Event event = parser.next();
+                if(event == JsonParser.Event.END_ARRAY) {
+                    break;
+                }
+                if(event == JsonParser.Event.START_OBJECT) {
+                    batch.add(item, parser.getObject());
+                } else {
+                    // a scalar item is already consumed by next()
+                    if(event == JsonParser.Event.START_ARRAY) {
+                        parser.skipArray();
+                    }
+                    batch.reject(item, "Expected a JSON object");
+                }
+            }
+        } catch (JsonException e) {
+            batch.reject(item, "Malformed JSON: " + e.getMessage());
+        }
+        return batch.finish();
+    }
+
+    private class Import {
+
+        private final Long userId;
+        private final BulkPostResponse report = new BulkPostResponse();
+        private final List<Post> chunk = new ArrayList<>(chunkSize);
+        private final List<Long> chunkLines = new ArrayList<>(chunkSize);
+
+        Import(Long userId) {
+            this.userId = userId;
+        }
+
+        void add(long line, JsonObject item) {
+            String text = string(item, "text");
+            if(text == null || text.isBlank()) {
+                reject(line, "Text is Required");
+                return;
+            }
+            if(text.length() > MAX_TEXT_LENGTH) {
+                reject(line, "Text must have at most " + MAX_TEXT_LENGTH + " characters");
+                return;
+            }
+
+            Long authorId = userId;
+            if(authorId == null) {
+                JsonValue value = item.get("userId");
+                if(!(value instanceof JsonNumber)) {
+                    reject(line, "userId is Required");
+                    return;
+                }
+                authorId = ((JsonNumber) value).longValue();
+            }
+
+            LocalDateTime dateTime = null;
+            String rawDateTime = string(item, "dateTime");
+            if(rawDateTime != null) {
+                try {
+                    dateTime = LocalDateTime.parse(rawDateTime);
+                } catch (DateTimeParseException e) {
+                    reject(line, "Invalid dateTime");
+                    return;
+                }
+            }
+
+            var author = new User();
+            author.setId(authorId);
+
+            var post = new Post();
+            post.setText(text);
+            post.setDateTime(dateTime);
+            post.setUser(author);
+
+            chunk.add(post);
+            chunkLines.add(line);
+            if(chunk.size() >= chunkSize) {
+                write();
+            }
+        }
+
+        void reject(long line, String message) {
+            report.setRejected(report.getRejected() + 1);
+            if(report.getErrors().size() < maxReportedErrors) {
+                report.getErrors().add(new BulkLineError(line, message));
+            }
+        }
+
+        BulkPostResponse finish() {
+            write();
+            return report;
+        }
+
+        private void write() {
+            if(chunk.isEmpty()) {
+                return;
+            }
+
+            List<Post> valid = chunk;
+            List<Long> validLines = chunkLines;
+            if(userId == null) {
+                Set<Long> existing = userRepository.findExistingIds(chunk.stream()
+                        .map(post -> post.getUser().getId())
+                        .collect(Collectors.toSet()));
+
+                valid = new ArrayList<>(chunk.size());
+                validLines = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    Post post = chunk.get(i);
+                    if(existing.contains(post.getUser().getId())) {
+                        valid.add(post);
+                        validLines.add(chunkLines.get(i));
+                    } else {
+                        reject(chunkLines.get(i), "Inexistent userId");
+                    }
+                }
+            }
+
+            // each shard's posts in a transaction of their own on that shard; one that fails, e.g. for an
+            // author deleted meanwhile, rejects its lines and the import goes on
+            Map<String, List<Integer>> indexesByShard = new HashMap<>();
+            for (int i = 0; i < valid.size(); i++) {
+                indexesByShard.computeIfAbsent(router.shardOf(valid.get(i).getUser().getId()), shard -> new ArrayList<>())
+                        .add(i);
+            }
+            for (Map.Entry<String, List<Integer>> entry : indexesByShard.entrySet()) {
+                List<Post> posts = new ArrayList<>(entry.getValue().size());
+                for (int i : entry.getValue()) {
+                    posts.add(valid.get(i));
+                }
+                try {
+                    router.withShard(entry.getKey(), () -> postRepository.persistChunk(posts));
+                    report.setAccepted(report.getAccepted() + posts.size());
+                } catch (RuntimeException e) {
+                    LOG.errorf(e, "Could not write %d bulk posts", posts.size());
+                    for (int i : entry.getValue()) {
+                        reject(validLines.get(i), "Could not write the post");
+                    }
+                }
+            }
+
+            chunk.clear();
+            chunkLines.clear();
+        }
+
+        private String string(JsonObject item, String name) {
+            JsonValue value = item.get(name);
+            return value instanceof JsonString ? ((JsonString) value).getString() : null;
+        }
+    }
+}
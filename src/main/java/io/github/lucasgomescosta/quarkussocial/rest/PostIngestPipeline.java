@@ -0,0 +1,267 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.PostRepository;
+import io.github.lucasgomescosta.quarkussocial.routing.ShardRouter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Asynchronous write path of single posts, {@code social.posts.ingest.mode=async}. Accepted posts
+ * wait in a bounded queue; one writer thread drains it and commits up to
+ * {@code social.posts.ingest.batch-size} posts per transaction (group commit) instead of one
+ * commit per request, waiting at most {@code social.posts.ingest.max-delay-millis} for a batch
+ * to fill.
+ * <ul>
+ *     <li>Durability, {@code social.posts.ingest.ack}: {@code queued} (default) acknowledges a
+ *     post as soon as it is queued, posts still queued are lost if the process dies;
+ *     {@code committed} acknowledges it once its batch committed, on one of
+ *     {@code social.posts.ingest.ack-threads} threads so resuming the responses does not hold up
+ *     the next batch.</li>
+ *     <li>Backpressure: a post that finds the queue ({@code social.posts.ingest.queue-capacity})
+ *     full for {@code social.posts.ingest.offer-timeout-millis} is rejected.</li>
+ * </ul>
+ * The queue is drained before shutdown completes.
+ */
+@ApplicationScoped
+public class PostIngestPipeline {
+
+    private static final Logger LOG = Logger.getLogger(PostIngestPipeline.class);
+
+    public static final String SYNC = "sync";
+    public static final String ASYNC = "async";
+    public static final String QUEUED = "queued";
+    public static final String COMMITTED = "committed";
+
+    private static final long POLL_MILLIS = 100;
+
+    @Inject
+    PostRepository postRepository;
+
+    @Inject
+    ShardRouter router;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "social.posts.ingest.mode", defaultValue = SYNC)
+    String mode;
+
+    @ConfigProperty(name = "social.posts.ingest.ack", defaultValue = QUEUED)
+    String ack;
+
+    @ConfigProperty(name = "social.posts.ingest.queue-capacity", defaultValue = "10000")
+    int queueCapacity;
+
+    @ConfigProperty(name = "social.posts.ingest.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "social.posts.ingest.max-delay-millis", defaultValue = "5")
+    long maxDelayMillis;
+
+    @ConfigProperty(name = "social.posts.ingest.offer-timeout-millis", defaultValue = "0")
+    long offerTimeoutMillis;
+
+    @ConfigProperty(name = "social.posts.ingest.retry-after-seconds", defaultValue = "1")
+    int retryAfterSeconds;
+
+    @ConfigProperty(name = "social.posts.ingest.ack-threads", defaultValue = "2")
+    int ackThreads;
+
+    private BlockingQueue<Ingest> queue;
+    private DistributionSummary batchSizes;
+    private Thread writer;
+    private ExecutorService acks;
+    private volatile boolean running;
+
+    @PostConstruct
+    void init() {
+        if(!isEnabled()) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        registry.gaugeCollectionSize("social.posts.ingest.queued", Tags.empty(), queue);
+        batchSizes = registry.summary("social.posts.ingest.batch-size");
+
+        acks = Executors.newFixedThreadPool(ackThreads);
+
+        running = true;
+        writer = new Thread(this::drain, "post-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if(writer == null) {
+            return;
+        }
+        running = false;
+        writer.join();
+        acks.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return ASYNC.equals(mode);
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Queues a new post, which must already have its id and author.
+     *
+     * @return completes with the post once acknowledged, see {@code social.posts.ingest.ack}, or
+     * exceptionally when {@code committed} and the post could not be written
+     * @throws RejectedExecutionException when the queue stayed full
+     */
+    public CompletionStage<Post> submit(Post post) {
+        Ingest ingest = new Ingest(post, router.shardOf(post.getUser().getId()));
+        boolean queued;
+        try {
+            queued = running && queue.offer(ingest, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+
+        if(!queued) {
+            registry.counter("social.posts.ingest.rejected").increment();
+            throw new RejectedExecutionException("The post ingest queue is full");
+        }
+        return COMMITTED.equals(ack) ? ingest.committed : CompletableFuture.completedFuture(post);
+    }
+
+    private void drain() {
+        List<Ingest> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            fill(batch);
+            if(batch.isEmpty()) {
+                continue;
+            }
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                // keep the writer alive; posts not acknowledged yet fail, a no-op for the others
+                LOG.error("Could not write a batch of posts", e);
+                batch.forEach(ingest -> acks.execute(() -> ingest.committed.completeExceptionally(e)));
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Waits for a first post, then for more until the batch is full or its delay is over.
+     */
+    private void fill(List<Ingest> batch) {
+        try {
+            Ingest first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if(first == null) {
+                return;
+            }
+            batch.add(first);
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+            while (batch.size() < batchSize) {
+                queue.drainTo(batch, batchSize - batch.size());
+                long remaining = deadline - System.nanoTime();
+                if(batch.size() >= batchSize || remaining <= 0) {
+                    return;
+                }
+                Ingest next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if(next == null) {
+                    return;
+                }
+                batch.add(next);
+            }
+        } catch (InterruptedException e) {
+            // stop taking new posts, the queued ones are still written
+            running = false;
+        }
+    }
+
+    private void write(List<Ingest> batch) {
+        batchSizes.record(batch.size());
+
+        // routing state is request scoped
+        ManagedContext requestContext = Arc.container().requestContext();
+        requestContext.activate();
+        try {
+            Map<String, List<Ingest>> batchByShard = batch.stream()
+                    .collect(Collectors.groupingBy(ingest -> ingest.shard));
+            batchByShard.forEach((shard, ingests) -> router.withShard(shard, () -> writeShard(ingests)));
+        } finally {
+            requestContext.terminate();
+        }
+
+        // only now, and off this thread: acknowledging resumes the waiting responses
+        for (Ingest ingest : batch) {
+            if(ingest.failure == null) {
+                ingest.committed.completeAsync(() -> ingest.post, acks);
+            } else {
+                acks.execute(() -> ingest.committed.completeExceptionally(ingest.failure));
+            }
+        }
+    }
+
+    private void writeShard(List<Ingest> ingests) {
+        try {
+            postRepository.persistChunk(ingests.stream().map(ingest -> ingest.post).collect(Collectors.toList()));
+        } catch (RuntimeException e) {
+            if(ingests.size() == 1) {
+                fail(ingests.get(0), e);
+                return;
+            }
+            // one bad post, e.g. of an author deleted since, must not take the others down with it
+            for (Ingest ingest : ingests) {
+                try {
+                    postRepository.persistChunk(List.of(ingest.post));
+                } catch (RuntimeException postFailure) {
+                    fail(ingest, postFailure);
+                }
+            }
+        }
+    }
+
+    private void fail(Ingest ingest, RuntimeException e) {
+        LOG.errorf(e, "Could not write post %d of user %d", ingest.post.getId(), ingest.post.getUser().getId());
+        registry.counter("social.posts.ingest.failed").increment();
+        ingest.failure = e;
+    }
+
+    private static class Ingest {
+
+        private final Post post;
+        private final String shard;
+        private final CompletableFuture<Post> committed = new CompletableFuture<>();
+        private RuntimeException failure;
+
+        Ingest(Post post, String shard) {
+            this.post = post;
+            this.shard = shard;
+        }
+    }
+}
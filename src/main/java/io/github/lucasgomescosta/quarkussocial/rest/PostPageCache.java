@@ -0,0 +1,119 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.PostResponse;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.PostsPageResponse;
+import io.github.lucasgomescosta.quarkussocial.tracing.Traced;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObjectBuilder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * First page of each author's posts, already rendered as JSON, so the followers of a popular
+ * author share one query, one entity hydration and one serialization. Keyed by the author and
+ * the version of its posts the entity tag is made of, so a cached page is never served with the
+ * tag of another version, whichever instance added the posts; pages of older versions expire
+ * after {@code social.posts.first-page-cache.expire-after-write}. Access control is not cached,
+ * callers check it on every request.
+ * <p>
+ * Pages are mostly rendered from the read replica, but only kept once the primary confirms
+ * their version: a page of a lagging replica is served to its request and not shared.
+ */
+@ApplicationScoped
+public class PostPageCache {
+
+    @ConfigProperty(name = "social.posts.first-page-cache.maximum-size", defaultValue = "10000")
+    long maximumSize;
+
+    @ConfigProperty(name = "social.posts.first-page-cache.expire-after-write", defaultValue = "60S")
+    Duration expireAfterWrite;
+
+    private Cache<Key, byte[]> pages;
+
+    @PostConstruct
+    void init() {
+        pages = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    /**
+     * @param loader renders the page of {@code version} on a miss, concurrent misses of the same
+     *               page wait for a single one
+     * @param onPrimary called after the loader, whether the primary is at {@code version}; since
+     *                  posts are only added, the loaded page is then the one of that version
+     */
+    @Traced
+    public byte[] firstPage(Long authorId, String version, Supplier<PostsPageResponse> loader, BooleanSupplier onPrimary) {
+        byte[][] loaded = new byte[1][];
+        byte[] page = pages.get(new Key(authorId, version), key -> {
+            loaded[0] = render(loader.get());
+            return onPrimary.getAsBoolean() ? loaded[0] : null;
+        });
+        return page != null ? page : loaded[0];
+    }
+
+    /**
+     * Same document the JSON provider writes for {@link PostsPageResponse}: null fields left out,
+     * dates in ISO-8601.
+     */
+    private static byte[] render(PostsPageResponse page) {
+        JsonArrayBuilder content = Json.createArrayBuilder();
+        for (PostResponse post : page.getContent()) {
+            JsonObjectBuilder item = Json.createObjectBuilder();
+            if(post.getText() != null) {
+                item.add("text", post.getText());
+            }
+            if(post.getDateTime() != null) {
+                item.add("dateTime", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(post.getDateTime()));
+            }
+            content.add(item);
+        }
+
+        JsonObjectBuilder json = Json.createObjectBuilder().add("content", content);
+        if(page.getNext() != null) {
+            json.add("next", page.getNext());
+        }
+        return json.build().toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class Key {
+
+        private final Long authorId;
+        private final String version;
+
+        Key(Long authorId, String version) {
+            this.authorId = authorId;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return authorId.equals(key.authorId) && version.equals(key.version);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(authorId, version);
+        }
+    }
+}
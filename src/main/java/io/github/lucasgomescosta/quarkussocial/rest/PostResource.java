@@ -4,17 +4,36 @@ import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
 import io.github.lucasgomescosta.quarkussocial.domain.model.User;
 import io.github.lucasgomescosta.quarkussocial.domain.repository.FollowerRepository;
 import io.github.lucasgomescosta.quarkussocial.domain.repository.PostRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.TimelineRepository;
 import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.metrics.MetricsConfiguration;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.BulkPostResponse;
 import io.github.lucasgomescosta.quarkussocial.rest.dto.CreatePostRequest;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.PostAcceptedResponse;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.PostCursor;
 import io.github.lucasgomescosta.quarkussocial.rest.dto.PostResponse;
-import io.quarkus.hibernate.orm.panache.PanacheQuery;
-import io.quarkus.panache.common.Sort;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.PostsPageResponse;
+import io.github.lucasgomescosta.quarkussocial.tracing.Traced;
+import io.micrometer.core.annotation.Timed;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import javax.inject.Inject;
 import javax.transaction.Transactional;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -26,17 +45,56 @@ public class PostResource {
     private UserRepository userRepository;
     private PostRepository repository;
     private FollowerRepository followerRepository;
+    private TimelineRepository timelineRepository;
+    private PostBulkImporter bulkImporter;
+    private PostIngestPipeline ingestPipeline;
+    private PostPageCache pageCache;
+    private Tracer tracer;
+    private int defaultPageSize;
+    private int maxPageSize;
 
     @Inject
-    public PostResource(UserRepository userRepository, PostRepository repository, FollowerRepository followerRepository) {
+    public PostResource(
+            UserRepository userRepository,
+            PostRepository repository,
+            FollowerRepository followerRepository,
+            TimelineRepository timelineRepository,
+            PostBulkImporter bulkImporter,
+            PostIngestPipeline ingestPipeline,
+            PostPageCache pageCache,
+            Tracer tracer,
+            @ConfigProperty(name = "social.posts.page-size.default", defaultValue = "20") int defaultPageSize,
+            @ConfigProperty(name = "social.posts.page-size.max", defaultValue = "100") int maxPageSize) {
         this.userRepository = userRepository;
         this.repository = repository;
         this.followerRepository = followerRepository;
+        this.timelineRepository = timelineRepository;
+        this.bulkImporter = bulkImporter;
+        this.ingestPipeline = ingestPipeline;
+        this.pageCache = pageCache;
+        this.tracer = tracer;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
+    /**
+     * Creates a post, in its own transaction ({@code 201 Created}) or, with
+     * {@code social.posts.ingest.mode=async}, through the {@link PostIngestPipeline}
+     * ({@code 202 Accepted} with the id of the post to be written, {@code 503} when it is
+     * acknowledged on commit and could not be written).
+     */
     @POST
+    @Timed(MetricsConfiguration.REST_TIMER)
+    @Traced
+    public CompletionStage<Response> savePost(@PathParam("userId") Long userId, CreatePostRequest postRequest) {
+        if(ingestPipeline.isEnabled()) {
+            return ingestPost(userId, postRequest);
+        }
+        return CompletableFuture.completedFuture(createPost(userId, postRequest));
+    }
+
     @Transactional
-    public Response savePost(@PathParam("userId") Long userId, CreatePostRequest postRequest) {
+    Response createPost(Long userId, CreatePostRequest postRequest) {
         User user = userRepository.findById(userId);
         if(user == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
@@ -46,13 +104,79 @@ public class PostResource {
         post.setText(postRequest.getText());
         post.setUser(user);
 
-        repository.persist(post);
+        repository.create(post);
+        timelineRepository.fanOut(post);
 
         return Response.status(Response.Status.CREATED).build();
     }
 
+    private CompletionStage<Response> ingestPost(Long userId, CreatePostRequest postRequest) {
+        User user = userRepository.findById(userId);
+        if(user == null) {
+            return CompletableFuture.completedFuture(Response.status(Response.Status.NOT_FOUND).build());
+        }
+
+        Post post = new Post();
+        post.setText(postRequest.getText());
+        post.setUser(user);
+        // the time it was accepted, not the time its batch commits
+        post.setDateTime(LocalDateTime.now());
+        repository.assignId(post);
+
+        CompletionStage<Post> accepted;
+        try {
+            accepted = ingestPipeline.submit(post);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(Response
+                    .status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, ingestPipeline.getRetryAfterSeconds())
+                    .build());
+        }
+        return accepted.handle((written, failure) -> failure == null
+                ? Response.status(Response.Status.ACCEPTED).entity(PostAcceptedResponse.fromEntity(written)).build()
+                // ack=committed only: the post is not written, the client may send it again
+                : Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, ingestPipeline.getRetryAfterSeconds())
+                        .entity("The post could not be written")
+                        .build());
+    }
+
+    @POST
+    @Path("bulk")
+    @Timed(MetricsConfiguration.REST_TIMER)
+    @Traced
+    public Response bulkSavePosts(@PathParam("userId") Long userId, InputStream body) {
+        if(userRepository.findById(userId) == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        BulkPostResponse report = bulkImporter.importJsonArray(userId, body);
+        return Response.ok(report).build();
+    }
+
+    @POST
+    @Path("bulk")
+    @Consumes(PostBulkImporter.NDJSON)
+    @Timed(MetricsConfiguration.REST_TIMER)
+    @Traced
+    public Response bulkSavePostsNdjson(@PathParam("userId") Long userId, InputStream body) {
+        if(userRepository.findById(userId) == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        BulkPostResponse report = bulkImporter.importNdjson(userId, body);
+        return Response.ok(report).build();
+    }
+
     @GET
-    public Response listPosts(@PathParam("userId") Long userId,  @HeaderParam("followerId") Long followerId ) {
+    @Timed(MetricsConfiguration.REST_TIMER)
+    @Traced
+    public Response listPosts(
+            @PathParam("userId") Long userId,
+            @HeaderParam("followerId") Long followerId,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("before") String before,
+            @Context Request request) {
         User user = userRepository.findById(userId);
         if(user == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
@@ -65,31 +189,89 @@ public class PostResource {
                     .build();
         }
 
-        User follower = userRepository.findById(followerId);
+        // the follower may live on another shard, it is only looked up when the edge is missing
+        boolean follows = followerRepository.follows(followerId, userId);
+        if(!follows){
+            if(userRepository.findByIdOnShard(followerId) == null){
+                return Response
+                        .status(Response.Status.BAD_REQUEST)
+                        .entity("Inexistent followerId")
+                        .build();
+            }
+            return Response.status(Response.Status.FORBIDDEN)
+                    .entity("You can't see these posts")
+                    .build();
+        }
 
-        if(follower == null){
+        if(limit != null && limit < 1) {
             return Response
                     .status(Response.Status.BAD_REQUEST)
-                    .entity("Inexistent followerId")
+                    .entity("limit must be greater than zero")
                     .build();
         }
+        int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
 
-        boolean follows = followerRepository.follows(follower, user);
-        if(!follows){
-            return Response.status(Response.Status.FORBIDDEN)
-                    .entity("You can't see these posts")
-                    .build();
+        PostCursor cursor = null;
+        if(before != null) {
+            try {
+                cursor = PostCursor.decode(before);
+            } catch (IllegalArgumentException e) {
+                return Response
+                        .status(Response.Status.BAD_REQUEST)
+                        .entity("Invalid cursor")
+                        .build();
+            }
+        }
+
+        // posts are only ever added: the count and the newest post version every page
+        Post newest = repository.findNewestByUser(user);
+        EntityTag tag = ConditionalGet.tag(
+                user.getPostsCount(), newest == null ? null : newest.getId(), pageSize, before);
+        Date lastModified = ConditionalGet.lastModified(newest == null ? null : newest.getDateTime());
+
+        Response notModified = ConditionalGet.notModified(request, tag, lastModified);
+        if(notModified != null) {
+            return notModified;
         }
 
-        PanacheQuery<Post> query = repository.find("user", Sort.by("dateTime", Sort.Direction.Descending) ,user);
+        if(cursor == null && pageSize == defaultPageSize) {
+            long postsCount = user.getPostsCount();
+            byte[] firstPage = pageCache.firstPage(userId, tag.getValue(), () -> findPage(user, null, defaultPageSize),
+                    () -> userRepository.findPostsCountOnPrimary(userId) == postsCount);
+            return Response.ok(firstPage, MediaType.APPLICATION_JSON).tag(tag).lastModified(lastModified).build();
+        }
 
-        var list = query.list();
+        return Response.ok(findPage(user, cursor, pageSize)).tag(tag).lastModified(lastModified).build();
+    }
 
-        List<PostResponse> postResponses = list.stream()
-//                .map(post -> PostResponse.fromEntity(post))
-                .map(PostResponse::fromEntity)
-                .collect(Collectors.toList());
+    private PostsPageResponse findPage(User user, PostCursor cursor, int pageSize) {
+        // one extra row tells whether there is a next page without a count query
+        List<Post> list = repository.findPageByUser(
+                user,
+                cursor == null ? null : cursor.getDateTime(),
+                cursor == null ? null : cursor.getId(),
+                pageSize + 1);
 
-        return Response.ok(postResponses).build();
+        boolean hasNext = list.size() > pageSize;
+        if(hasNext) {
+            list = list.subList(0, pageSize);
+        }
+
+        Span mapping = tracer.spanBuilder("PostResponse.fromEntity").startSpan();
+        List<PostResponse> postResponses;
+        try {
+            postResponses = list.stream()
+                    .map(PostResponse::fromEntity)
+                    .collect(Collectors.toList());
+        } finally {
+            mapping.end();
+        }
+
+        var page = new PostsPageResponse();
+        page.setContent(postResponses);
+        if(hasNext) {
+            page.setNext(PostCursor.fromEntity(list.get(list.size() - 1)).encode());
+        }
+        return page;
     }
 }
@@ -0,0 +1,88 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.routing.ShardRouter;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.transaction.Transactional;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes every user as newline delimited JSON while reading them from a database cursor
+ * ({@code social.users.export.fetch-size} rows per round trip), shard by shard and in id order
+ * within a shard. Each user is detached once written, so memory use does not grow with the table.
+ */
+@ApplicationScoped
+public class UserExporter {
+
+    @Inject
+    UserRepository userRepository;
+
+    @Inject
+    ShardRouter router;
+
+    @ConfigProperty(name = "social.users.export.fetch-size", defaultValue = "500")
+    int fetchSize;
+
+    public void writeNdjson(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        try {
+            for (String shard : router.getShards()) {
+                router.withShard(shard, () -> writeShard(writer));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    // one transaction per shard, its cursor reads from that shard's datasource
+    @Transactional
+    void writeShard(Writer writer) {
+        try (Stream<User> users = userRepository.streamAllById(fetchSize)) {
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                User user = iterator.next();
+                writer.write(toJson(user).toString());
+                writer.write('\n');
+                userRepository.getEntityManager().detach(user);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static JsonObject toJson(User user) {
+        JsonObjectBuilder json = Json.createObjectBuilder().add("id", user.getId());
+        // nullable columns, rows written outside of the API may lack them
+        if(user.getName() == null) {
+            json.addNull("name");
+        } else {
+            json.add("name", user.getName());
+        }
+        if(user.getAge() == null) {
+            json.addNull("age");
+        } else {
+            json.add("age", user.getAge());
+        }
+        return json
+                .add("followersCount", user.getFollowersCount())
+                .add("followingCount", user.getFollowingCount())
+                .add("postsCount", user.getPostsCount())
+                .build();
+    }
+}
@@ -2,19 +2,28 @@ package io.github.lucasgomescosta.quarkussocial.rest;
 
 import io.github.lucasgomescosta.quarkussocial.domain.model.User;
 import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.metrics.MetricsConfiguration;
 import io.github.lucasgomescosta.quarkussocial.rest.dto.CreateUserRequest;
 import io.github.lucasgomescosta.quarkussocial.rest.dto.ResponseError;
-import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
-import io.quarkus.hibernate.orm.panache.PanacheQuery;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.UserResponse;
+import io.github.lucasgomescosta.quarkussocial.tracing.Traced;
+import io.micrometer.core.annotation.Timed;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import javax.inject.Inject;
 import javax.transaction.Transactional;
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriBuilder;
+import javax.ws.rs.core.UriInfo;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Path("/users")
 @Consumes(MediaType.APPLICATION_JSON)
@@ -23,15 +32,28 @@ public class UserResource {
 
     private UserRepository userRepository;
     private Validator validator;
+    private UserExporter userExporter;
+    private int defaultPageSize;
+    private int maxPageSize;
 
     @Inject
-    public UserResource(UserRepository userRepository, Validator validator) {
+    public UserResource(
+            UserRepository userRepository,
+            Validator validator,
+            UserExporter userExporter,
+            @ConfigProperty(name = "social.users.page-size.default", defaultValue = "100") int defaultPageSize,
+            @ConfigProperty(name = "social.users.page-size.max", defaultValue = "1000") int maxPageSize) {
         this.userRepository = userRepository;
         this.validator = validator;
+        this.userExporter = userExporter;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @POST
     @Transactional
+    @Timed(MetricsConfiguration.REST_TIMER)
+    @Traced
     public Response createUser( CreateUserRequest userRequest) {
 
         Set<ConstraintViolation<CreateUserRequest>> violations = validator.validate(userRequest);
@@ -44,28 +66,73 @@ public class UserResource {
         user.setName(userRequest.getName());
         user.setAge(userRequest.getAge());
 
-        userRepository.persist(user);
+        userRepository.create(user);
 
         return Response
                 .status(Response.Status.CREATED.getStatusCode())
-                .entity(user)
+                .entity(UserResponse.fromEntity(user))
                 .build();
     }
 
+    /**
+     * A page of users in id order. The body stays a plain array; when there are more users a
+     * {@code Link: <...?after=<last id>&limit=...>; rel="next"} header points to the next page.
+     */
     @GET
-    public Response listAllUsers() {
-        PanacheQuery<User> query = userRepository.findAll();
-        return Response.ok(query.list()).build();
+    @Timed(MetricsConfiguration.REST_TIMER)
+    @Traced
+    public Response listAllUsers(
+            @QueryParam("limit") Integer limit,
+            @QueryParam("after") Long after,
+            @Context UriInfo uriInfo) {
+        UriBuilder nextPage = uriInfo.getRequestUriBuilder();
+        if(limit != null && limit < 1) {
+            return Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .entity("limit must be greater than zero")
+                    .build();
+        }
+        int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        // one extra row tells whether there is a next page
+        List<User> users = userRepository.findPage(after, pageSize + 1);
+        if(users.size() <= pageSize) {
+            return Response.ok(toResponses(users)).build();
+        }
+
+        users = users.subList(0, pageSize);
+        var next = nextPage
+                .replaceQueryParam("after", users.get(pageSize - 1).getId())
+                .replaceQueryParam("limit", pageSize)
+                .build();
+        return Response.ok(toResponses(users)).link(next, "next").build();
+    }
+
+    private static List<UserResponse> toResponses(List<User> users) {
+        return users.stream().map(UserResponse::fromEntity).collect(Collectors.toList());
+    }
+
+    @GET
+    @Path("export")
+    @Produces(PostBulkImporter.NDJSON)
+    @Timed(MetricsConfiguration.REST_TIMER)
+    @Traced
+    public Response exportUsers() {
+        StreamingOutput output = userExporter::writeNdjson;
+        return Response.ok(output).build();
     }
 
     @DELETE
     @Path("{id}")
     @Transactional
+    @Timed(MetricsConfiguration.REST_TIMER)
+    @Traced
     public Response deleteUser(@PathParam("id") Long id) {
         User user = userRepository.findById(id);
 
         if(user != null) {
             userRepository.delete(user);
+            userRepository.evict(id);
             return Response.noContent().build();
         }
         return Response.status(Response.Status.NOT_FOUND).build();
@@ -74,12 +141,15 @@ public class UserResource {
     @PUT
     @Path("{id}")
     @Transactional
+    @Timed(MetricsConfiguration.REST_TIMER)
+    @Traced
     public Response updateUser(@PathParam("id") Long id, CreateUserRequest userData) {
         User user = userRepository.findById(id);
 
         if(user != null) {
             user.setName(userData.getName());
             user.setAge(userData.getAge());
+            userRepository.evict(id);
             return Response.noContent().build();
         }
 
@@ -0,0 +1,17 @@
+package io.github.lucasgomescosta.quarkussocial.rest.dto;
+
+import lombok.Data;
+
+@Data
+public class BulkLineError {
+    private long line;
+    private String message;
+
+    public BulkLineError() {
+    }
+
+    public BulkLineError(long line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+}
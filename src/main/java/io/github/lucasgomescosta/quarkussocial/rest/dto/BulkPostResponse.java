@@ -0,0 +1,14 @@
+package io.github.lucasgomescosta.quarkussocial.rest.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkPostResponse {
+
+    private long accepted;
+    private long rejected;
+    private List<BulkLineError> errors = new ArrayList<>();
+}
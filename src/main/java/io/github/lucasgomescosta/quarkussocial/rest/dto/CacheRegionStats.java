@@ -0,0 +1,11 @@
+package io.github.lucasgomescosta.quarkussocial.rest.dto;
+
+import lombok.Data;
+
+@Data
+public class CacheRegionStats {
+    private long hits;
+    private long misses;
+    private long puts;
+    private long size;
+}
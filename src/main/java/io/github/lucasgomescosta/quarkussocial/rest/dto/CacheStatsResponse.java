@@ -0,0 +1,10 @@
+package io.github.lucasgomescosta.quarkussocial.rest.dto;
+
+import lombok.Data;
+
+@Data
+public class CacheStatsResponse {
+    private CacheRegionStats users;
+    private CacheRegionStats queries;
+    private CacheRegionStats followGraph;
+}
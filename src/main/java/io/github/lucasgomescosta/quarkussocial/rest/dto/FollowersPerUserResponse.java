@@ -7,6 +7,7 @@ import java.util.List;
 @Data
 public class FollowersPerUserResponse {
 
-    private Integer followersCount;
+    private Long followersCount;
     private List<FollowerResponse> content;
+    private Long next;
 }
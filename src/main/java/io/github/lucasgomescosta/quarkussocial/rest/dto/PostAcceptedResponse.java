@@ -0,0 +1,19 @@
+package io.github.lucasgomescosta.quarkussocial.rest.dto;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class PostAcceptedResponse {
+    private Long id;
+    private LocalDateTime dateTime;
+
+    public static PostAcceptedResponse fromEntity(Post post) {
+        PostAcceptedResponse response = new PostAcceptedResponse();
+        response.setId(post.getId());
+        response.setDateTime(post.getDateTime());
+        return response;
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.lucasgomescosta.quarkussocial.rest.dto;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque position in a user's post timeline: the (dateTime, id) of the last post of a page,
+ * encoded as url-safe base64 so clients just echo it back in {@code ?before=}.
+ */
+@Data
+public class PostCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime dateTime;
+    private final Long id;
+
+    public static PostCursor fromEntity(Post post) {
+        return new PostCursor(post.getDateTime(), post.getId());
+    }
+
+    public String encode() {
+        String raw = dateTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PostCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if(separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            var dateTime = LocalDateTime.parse(raw.substring(0, separator));
+            var id = Long.valueOf(raw.substring(separator + 1));
+            return new PostCursor(dateTime, id);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.lucasgomescosta.quarkussocial.rest.dto;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import lombok.Data;
+
+@Data
+public class UserResponse {
+    private Long id;
+    private String name;
+    private Integer age;
+    private Long followersCount;
+    private Long followingCount;
+    private Long postsCount;
+
+    public static UserResponse fromEntity(User user) {
+        UserResponse response = new UserResponse();
+        response.setId(user.getId());
+        response.setName(user.getName());
+        response.setAge(user.getAge());
+        response.setFollowersCount(user.getFollowersCount());
+        response.setFollowingCount(user.getFollowingCount());
+        response.setPostsCount(user.getPostsCount());
+        return response;
+    }
+}
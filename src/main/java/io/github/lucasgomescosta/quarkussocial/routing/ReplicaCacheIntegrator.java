@@ -0,0 +1,48 @@
+package io.github.lucasgomescosta.quarkussocial.routing;
+
+import org.hibernate.CacheMode;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PreLoadEvent;
+import org.hibernate.event.spi.PreLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Keeps sessions on the {@value RoutingConfiguration#REPLICA} tenant from putting what they load
+ * in the second-level cache: a copy read while the replica lags would stay there after it caught
+ * up, until the next write of the entity evicts it. They still read the cache, which only sessions
+ * on the primary and the shards fill. Registered in
+ * {@code META-INF/services/org.hibernate.integrator.spi.Integrator}, so it covers every session,
+ * the request's and those {@link ShardedQueries} opens alike.
+ */
+public class ReplicaCacheIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        serviceRegistry.getService(EventListenerRegistry.class)
+                .appendListeners(EventType.PRE_LOAD, new ReplicaGetOnly());
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    /**
+     * Fires before the loaded entity is put in the cache, the tenant of a session never changes.
+     */
+    private static final class ReplicaGetOnly implements PreLoadEventListener {
+
+        @Override
+        public void onPreLoad(PreLoadEvent event) {
+            var session = event.getSession();
+            if(RoutingConfiguration.REPLICA.equals(session.getTenantIdentifier())
+                    && session.getCacheMode().isPutEnabled()) {
+                session.setCacheMode(CacheMode.GET);
+            }
+        }
+    }
+}
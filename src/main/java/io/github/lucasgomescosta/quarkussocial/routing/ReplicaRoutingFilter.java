@@ -0,0 +1,66 @@
+package io.github.lucasgomescosta.quarkussocial.routing;
+
+import javax.inject.Inject;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Cookie;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.NewCookie;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Serves GET and HEAD requests from the read replica. A successful write hands the client a
+ * cookie that keeps its reads on the primary for {@code social.replica.read-your-writes.window-seconds},
+ * so it does not miss its own write while the replica catches up.
+ */
+@Provider
+public class ReplicaRoutingFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    public static final String READ_PRIMARY_UNTIL = "social-read-primary-until";
+
+    @Inject
+    RoutingState state;
+
+    @Inject
+    RoutingConfiguration configuration;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if(isRead(requestContext) && !recentlyWrote(requestContext.getCookies().get(READ_PRIMARY_UNTIL))) {
+            state.setReadOnly(true);
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        int readYourWritesWindow = configuration.getReadYourWritesWindow();
+        if(isRead(requestContext) || readYourWritesWindow <= 0
+                || responseContext.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+            return;
+        }
+        long until = System.currentTimeMillis() + readYourWritesWindow * 1000L;
+        var cookie = new NewCookie(READ_PRIMARY_UNTIL, Long.toString(until), "/", null, null,
+                readYourWritesWindow, false, true);
+        responseContext.getHeaders().add(HttpHeaders.SET_COOKIE, cookie);
+    }
+
+    private static boolean isRead(ContainerRequestContext requestContext) {
+        String method = requestContext.getMethod();
+        return HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method);
+    }
+
+    private static boolean recentlyWrote(Cookie cookie) {
+        if(cookie == null) {
+            return false;
+        }
+        try {
+            return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.lucasgomescosta.quarkussocial.routing;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.arc.Unremovable;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replica and shard settings. Hibernate looks the tenants of a {@code multitenant=DATABASE}
+ * unit up by datasource name, which the default datasource does not have: it is exposed as
+ * {@value #PRIMARY} here, the replica is the {@code quarkus.datasource."replica"} one and the
+ * other shards are the datasources named in {@code social.sharding.shards}.
+ */
+@ApplicationScoped
+public class RoutingConfiguration {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    @ConfigProperty(name = "social.replica.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "social.replica.read-your-writes.window-seconds", defaultValue = "5")
+    int readYourWritesWindow;
+
+    @ConfigProperty(name = "social.sharding.shards", defaultValue = PRIMARY)
+    List<String> shards;
+
+    private List<String> tenants;
+
+    @PostConstruct
+    void init() {
+        tenants = new ArrayList<>(shards);
+        tenants.add(REPLICA);
+    }
+
+    @Produces
+    @Singleton
+    @Unremovable
+    @DataSource(PRIMARY)
+    public AgroalDataSource primaryDataSource(AgroalDataSource dataSource) {
+        return dataSource;
+    }
+
+    /**
+     * The datasource serving {@code shard}: the replica for read-only work on the primary, which
+     * is the only shard with one, the shard itself otherwise.
+     */
+    public String tenantOf(String shard, boolean readOnly) {
+        return enabled && readOnly && PRIMARY.equals(shard) ? REPLICA : shard;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    public List<String> getShards() {
+        return shards;
+    }
+
+    /**
+     * Every datasource entities are read from, the keys of the second-level cache carry it.
+     */
+    public List<String> getTenants() {
+        return tenants;
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.lucasgomescosta.quarkussocial.routing;
+
+import javax.enterprise.context.RequestScoped;
+
+/**
+ * Where the current request reads and writes: its shard, see {@link ShardRouter}, and whether it
+ * may be served from the read replica.
+ */
+@RequestScoped
+public class RoutingState {
+
+    private boolean readOnly;
+    private String shard;
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    public String getShard() {
+        return shard;
+    }
+
+    public void setShard(String shard) {
+        this.shard = shard;
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.lucasgomescosta.quarkussocial.routing;
+
+import io.quarkus.hibernate.orm.runtime.tenant.TenantResolver;
+
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+
+/**
+ * Picks the datasource of the request's Hibernate session when it opens: the shard of the user
+ * the request is about (see {@link ShardRoutingFilter}), the primary when there is none, and the
+ * {@code replica} instead of the primary while the request is read-only (a GET, see
+ * {@link ReplicaRoutingFilter}). The persistence unit runs with
+ * {@code multitenant=DATABASE}, where the tenant id is the datasource name, see
+ * {@link RoutingConfiguration}.
+ */
+@RequestScoped
+public class RoutingTenantResolver implements TenantResolver {
+
+    @Inject
+    RoutingState state;
+
+    @Inject
+    RoutingConfiguration configuration;
+
+    @Override
+    public String getDefaultTenantId() {
+        return RoutingConfiguration.PRIMARY;
+    }
+
+    @Override
+    public String resolveTenantId() {
+        String shard = state.getShard() == null ? getDefaultTenantId() : state.getShard();
+        return configuration.tenantOf(shard, state.isReadOnly());
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.lucasgomescosta.quarkussocial.routing;
+
+import io.quarkus.arc.Arc;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Maps users to the shard holding them, their posts, follow edges and timeline, by a hash of the
+ * user id over {@code social.sharding.shards}, and routes the current request to a shard.
+ * The session picks its datasource when it opens, so a request must be routed before it touches
+ * the database, see {@link RoutingTenantResolver}.
+ */
+@ApplicationScoped
+public class ShardRouter {
+
+    @Inject
+    RoutingConfiguration configuration;
+
+    @Inject
+    RoutingState state;
+
+    public boolean isSharded() {
+        return configuration.getShards().size() > 1;
+    }
+
+    public List<String> getShards() {
+        return configuration.getShards();
+    }
+
+    public String shardOf(Long userId) {
+        List<String> shards = configuration.getShards();
+        return shards.get((int) Math.floorMod(hash(userId), (long) shards.size()));
+    }
+
+    /**
+     * The shard of the current request, the primary outside of one or when it was not routed.
+     */
+    public String currentShard() {
+        if(!Arc.container().requestContext().isActive() || state.getShard() == null) {
+            return RoutingConfiguration.PRIMARY;
+        }
+        return state.getShard();
+    }
+
+    public void route(Long userId) {
+        state.setShard(shardOf(userId));
+    }
+
+    /**
+     * Runs {@code work} routed to {@code shard}. Only the sessions opened by {@code work} are
+     * affected, e.g. the one of a transaction it starts: the request context must be active.
+     */
+    public <T> T withShard(String shard, Supplier<T> work) {
+        String previous = state.getShard();
+        state.setShard(shard);
+        try {
+            return work.get();
+        } finally {
+            state.setShard(previous);
+        }
+    }
+
+    public void withShard(String shard, Runnable work) {
+        withShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * The 64 bit finalizer of MurmurHash3: ids are sequential, their low bits alone would not
+     * spread consecutive users evenly over the shards.
+     */
+    static long hash(long userId) {
+        long h = userId;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.lucasgomescosta.quarkussocial.routing;
+
+import javax.inject.Inject;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Routes requests about a user, {@code /users/{userId}/...} and {@code /users/{id}}, to the shard
+ * of that user. Other requests stay on the primary unless the resource routes them itself.
+ */
+@Provider
+public class ShardRoutingFilter implements ContainerRequestFilter {
+
+    @Inject
+    ShardRouter router;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        MultivaluedMap<String, String> pathParameters = requestContext.getUriInfo().getPathParameters();
+        String userId = pathParameters.containsKey("userId")
+                ? pathParameters.getFirst("userId")
+                : pathParameters.getFirst("id");
+        if(userId == null) {
+            return;
+        }
+        try {
+            router.route(Long.valueOf(userId));
+        } catch (NumberFormatException e) {
+            // left to the resource, which rejects the path parameter
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package io.github.lucasgomescosta.quarkussocial.routing;
+
+import io.opentelemetry.context.Context;
+import io.quarkus.arc.Arc;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Runs read queries on shards other than the one of the current request, scatter-gathering
+ * over several shards in parallel. Each shard is read with a session of its own, opened on a pool
+ * thread so it never joins the caller's transaction. With a single shard everything runs on the
+ * request's session.
+ */
+@ApplicationScoped
+public class ShardedQueries {
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    ShardRouter router;
+
+    @Inject
+    RoutingState state;
+
+    @Inject
+    RoutingConfiguration configuration;
+
+    @ConfigProperty(name = "social.sharding.scatter.threads", defaultValue = "16")
+    int threads;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Runs {@code query} on every shard and concatenates the results, in no particular order.
+     */
+    public <T> List<T> scatter(Function<EntityManager, List<T>> query) {
+        Map<String, Void> shards = new LinkedHashMap<>();
+        router.getShards().forEach(shard -> shards.put(shard, null));
+        return scatter(shards, (entityManager, ignored) -> query.apply(entityManager));
+    }
+
+    /**
+     * Runs {@code query} on each shard of {@code argumentsByShard} with that shard's argument and
+     * concatenates the results, in no particular order.
+     */
+    public <A, T> List<T> scatter(Map<String, A> argumentsByShard, BiFunction<EntityManager, A, List<T>> query) {
+        List<T> results = new ArrayList<>();
+        if(!router.isSharded()) {
+            argumentsByShard.values().forEach(argument -> results.addAll(query.apply(entityManager, argument)));
+            return results;
+        }
+
+        boolean readOnly = isReadOnly();
+        List<Future<List<T>>> futures = new ArrayList<>();
+        argumentsByShard.forEach((shard, argument) -> futures.add(
+                submit(shard, readOnly, entityManager -> query.apply(entityManager, argument))));
+        for (Future<List<T>> future : futures) {
+            results.addAll(await(future));
+        }
+        return results;
+    }
+
+    /**
+     * Runs {@code query} on {@code shard}, on the request's session when it is the request's shard.
+     */
+    public <T> T onShard(String shard, Function<EntityManager, T> query) {
+        if(shard.equals(router.currentShard())) {
+            return query.apply(entityManager);
+        }
+        return await(submit(shard, isReadOnly(), query));
+    }
+
+    /**
+     * Like {@link #onShard}, but never on the replica: for what is cached beyond the request,
+     * which the lagging replica would leave stale until it expires.
+     */
+    public <T> T onPrimary(String shard, Function<EntityManager, T> query) {
+        if(shard.equals(router.currentShard()) && !isReadOnly()) {
+            return query.apply(entityManager);
+        }
+        return await(submit(shard, false, query));
+    }
+
+    private <T> Future<T> submit(String shard, boolean readOnly, Function<EntityManager, T> query) {
+        String tenant = configuration.tenantOf(shard, readOnly);
+        Callable<T> task = () -> {
+            try (Session session = sessionFactory.withOptions().tenantIdentifier(tenant).openSession()) {
+                session.setDefaultReadOnly(true);
+                return query.apply(session);
+            }
+        };
+        // the queries nest under the span of the caller
+        return executor.submit(Context.current().wrap(task));
+    }
+
+    private boolean isReadOnly() {
+        return Arc.container().requestContext().isActive() && state.isReadOnly();
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.lucasgomescosta.quarkussocial.routing;
+
+import io.agroal.api.AgroalDataSource;
+import io.github.lucasgomescosta.quarkussocial.domain.model.Sequences;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Hands out user ids when there are several shards: the shard of a user is known from its id,
+ * which has to be taken before the user is inserted, and from one sequence for all the shards,
+ * the {@code users_seq} of the primary. Blocks of {@link Sequences#allocationSize()} ids are
+ * reserved at a time, like the pooled-lo optimizer of the entity's own generator does.
+ */
+@ApplicationScoped
+public class UserIdAllocator {
+
+    private static final String SEQUENCE = "users_seq";
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    private final int allocationSize = Sequences.allocationSize();
+
+    private long next;
+    private long limit;
+
+    // never enlisted in the caller's transaction, which is bound to the user's shard
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public synchronized long next() {
+        if(next == limit) {
+            next = nextBlock();
+            limit = next + allocationSize;
+        }
+        return next++;
+    }
+
+    private long nextBlock() {
+        String sql = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect()
+                .getSequenceNextValString(SEQUENCE);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not allocate user ids from " + SEQUENCE, e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.lucasgomescosta.quarkussocial.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
+
+import javax.inject.Inject;
+import javax.ws.rs.Path;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+
+/**
+ * Names the server span after the matched resource method and times the response body
+ * serialization in its own span.
+ */
+@Provider
+public class JaxRsTracing implements ContainerRequestFilter, WriterInterceptor {
+
+    @Inject
+    RequestTracing tracing;
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if(resourceInfo.getResourceClass() == null) {
+            return;
+        }
+        String route = path(resourceInfo.getResourceClass().getAnnotation(Path.class))
+                + path(resourceInfo.getResourceMethod().getAnnotation(Path.class));
+        tracing.route(requestContext.getMethod(), route);
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Span span = tracing.tracer().spanBuilder("serialize " + context.getType().getSimpleName())
+                .setParent(tracing.parent())
+                .startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            context.proceed();
+        } finally {
+            span.end();
+        }
+    }
+
+    private static String path(Path path) {
+        if(path == null) {
+            return "";
+        }
+        String value = path.value();
+        return value.startsWith("/") ? value : "/" + value;
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.lucasgomescosta.quarkussocial.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.quarkus.arc.Arc;
+import io.quarkus.vertx.http.runtime.CurrentVertxRequest;
+import io.quarkus.vertx.http.runtime.filters.Filters;
+import io.vertx.ext.web.RoutingContext;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+/**
+ * Opens a server span per HTTP request and ends it once the response is written, so it covers
+ * the JAX-RS filters, the handler and the JSON serialization. The span travels with the Vert.x
+ * request rather than a thread local because the handler may finish on another thread, see
+ * {@link #parent()}.
+ */
+@ApplicationScoped
+public class RequestTracing {
+
+    static final AttributeKey<String> HTTP_METHOD = AttributeKey.stringKey("http.method");
+    static final AttributeKey<String> HTTP_TARGET = AttributeKey.stringKey("http.target");
+    static final AttributeKey<String> HTTP_ROUTE = AttributeKey.stringKey("http.route");
+    static final AttributeKey<Long> HTTP_STATUS_CODE = AttributeKey.longKey("http.status_code");
+
+    private static final String SERVER_CONTEXT = RequestTracing.class.getName() + ".context";
+
+    @Inject
+    Tracer tracer;
+
+    @Inject
+    CurrentVertxRequest currentRequest;
+
+    void registerServerSpan(@Observes Filters filters) {
+        filters.register(this::startServerSpan, 100);
+    }
+
+    private void startServerSpan(RoutingContext routingContext) {
+        var request = routingContext.request();
+        Span span = tracer.spanBuilder("HTTP " + request.method())
+                .setSpanKind(SpanKind.SERVER)
+                .setParent(Context.root())
+                .setAttribute(HTTP_METHOD, request.method().name())
+                .setAttribute(HTTP_TARGET, request.uri())
+                .startSpan();
+        routingContext.put(SERVER_CONTEXT, Context.root().with(span));
+        routingContext.addBodyEndHandler(ignored -> {
+            int status = routingContext.response().getStatusCode();
+            span.setAttribute(HTTP_STATUS_CODE, status);
+            if(status >= 500) {
+                span.setStatus(StatusCode.ERROR);
+            }
+            span.end();
+        });
+        routingContext.next();
+    }
+
+    /**
+     * Names the server span after the matched JAX-RS route, e.g. {@code GET /users/{userId}/posts}.
+     */
+    public void route(String method, String route) {
+        Span span = Span.fromContext(serverContext());
+        span.updateName(method + " " + route);
+        span.setAttribute(HTTP_ROUTE, route);
+    }
+
+    /**
+     * Parent for a new span: the current span when there is one, otherwise the server span of the
+     * HTTP request being handled.
+     */
+    public Context parent() {
+        Context current = Context.current();
+        if(Span.fromContext(current).getSpanContext().isValid()) {
+            return current;
+        }
+        return serverContext();
+    }
+
+    private Context serverContext() {
+        if(!Arc.container().requestContext().isActive()) {
+            return Context.current();
+        }
+        RoutingContext routingContext = currentRequest.getCurrent();
+        Context server = routingContext == null ? null : routingContext.get(SERVER_CONTEXT);
+        return server == null ? Context.current() : server;
+    }
+
+    public Tracer tracer() {
+        return tracer;
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.lucasgomescosta.quarkussocial.tracing;
+
+import javax.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Wraps each business method of the bean, or the annotated method, in a span named
+ * {@code SimpleClassName.method}, see {@link TracedInterceptor}.
+ */
+@Inherited
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Traced {
+}
@@ -0,0 +1,57 @@
+package io.github.lucasgomescosta.quarkussocial.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Scope;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+import java.util.concurrent.CompletionStage;
+
+@Traced
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_BEFORE)
+public class TracedInterceptor {
+
+    @Inject
+    RequestTracing tracing;
+
+    @AroundInvoke
+    Object trace(InvocationContext context) throws Exception {
+        var method = context.getMethod();
+        Span span = tracing.tracer()
+                .spanBuilder(method.getDeclaringClass().getSimpleName() + "." + method.getName())
+                .setParent(tracing.parent())
+                .startSpan();
+
+        boolean async = false;
+        try (Scope ignored = span.makeCurrent()) {
+            Object result = context.proceed();
+            if(result instanceof CompletionStage) {
+                // the handler may still be running on another thread, end the span with it
+                async = true;
+                ((CompletionStage<?>) result).whenComplete((value, failure) -> end(span, failure));
+            }
+            return result;
+        } catch (Exception e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            if(!async) {
+                span.end();
+            }
+        }
+    }
+
+    private static void end(Span span, Throwable failure) {
+        if(failure != null) {
+            span.recordException(failure);
+            span.setStatus(StatusCode.ERROR);
+        }
+        span.end();
+    }
+}
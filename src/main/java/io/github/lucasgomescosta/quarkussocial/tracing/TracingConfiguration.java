@@ -0,0 +1,64 @@
+package io.github.lucasgomescosta.quarkussocial.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.quarkus.arc.DefaultBean;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.inject.Disposes;
+import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OpenTelemetry tracer for the application. Spans go nowhere by default
+ * ({@code social.tracing.exporter=none}) or to the log ({@code logging}, the dev and test default);
+ * tests replace the {@link SpanExporter} bean with an in-memory one.
+ */
+public class TracingConfiguration {
+
+    public static final String INSTRUMENTATION_NAME = "quarkus-social";
+
+    static final AttributeKey<String> SERVICE_NAME = AttributeKey.stringKey("service.name");
+
+    @Produces
+    @Singleton
+    @DefaultBean
+    public SpanExporter spanExporter(
+            @ConfigProperty(name = "social.tracing.exporter", defaultValue = "none") String exporter) {
+        if("none".equals(exporter)) {
+            return new NoopSpanExporter();
+        }
+        return new LoggingSpanExporter();
+    }
+
+    @Produces
+    @Singleton
+    public SdkTracerProvider tracerProvider(
+            SpanExporter exporter,
+            @ConfigProperty(name = "social.tracing.sample-ratio", defaultValue = "0.01") double sampleRatio) {
+        return SdkTracerProvider.builder()
+                .setResource(Resource.getDefault().merge(Resource.create(Attributes.of(SERVICE_NAME, INSTRUMENTATION_NAME))))
+                // a sampled request keeps all of its child spans
+                .setSampler(Sampler.parentBased(Sampler.traceIdRatioBased(sampleRatio)))
+                .addSpanProcessor(BatchSpanProcessor.builder(exporter).build())
+                .build();
+    }
+
+    void closeTracerProvider(@Disposes SdkTracerProvider tracerProvider) {
+        tracerProvider.shutdown().join(10, TimeUnit.SECONDS);
+    }
+
+    @Produces
+    @Singleton
+    public Tracer tracer(SdkTracerProvider tracerProvider) {
+        return tracerProvider.get(INSTRUMENTATION_NAME);
+    }
+}
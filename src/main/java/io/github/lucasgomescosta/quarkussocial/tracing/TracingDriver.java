@@ -0,0 +1,140 @@
+package io.github.lucasgomescosta.quarkussocial.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.quarkus.arc.Arc;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver that delegates to {@code social.tracing.jdbc.driver} and records a client span
+ * per statement execution, commit and rollback, with the SQL in {@code db.statement}; see
+ * {@link TracingConnection}. Configured as the datasource driver
+ * ({@code quarkus.datasource.jdbc.driver}); statements run outside of a traced request,
+ * like schema generation or the scheduled jobs, are not recorded.
+ */
+public class TracingDriver implements Driver {
+
+    static final AttributeKey<String> DB_SYSTEM = AttributeKey.stringKey("db.system");
+    static final AttributeKey<String> DB_STATEMENT = AttributeKey.stringKey("db.statement");
+
+    private volatile Driver delegate;
+    private volatile RequestTracing tracing;
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        Connection connection = delegate().connect(url, info);
+        if(connection == null) {
+            return null;
+        }
+        String system = url.startsWith("jdbc:") ? url.substring(5, url.indexOf(':', 5)) : url;
+        return new TracingConnection(connection, this, system);
+    }
+
+    @Override
+    public boolean acceptsURL(String url) throws SQLException {
+        return delegate().acceptsURL(url);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+        return delegate().getPropertyInfo(url, info);
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return delegate().getMajorVersion();
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return delegate().getMinorVersion();
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return delegate().jdbcCompliant();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate().getParentLogger();
+    }
+
+    private Driver delegate() {
+        if(delegate == null) {
+            String driverClass = ConfigProvider.getConfig().getValue("social.tracing.jdbc.driver", String.class);
+            try {
+                delegate = (Driver) Class.forName(driverClass, true, Thread.currentThread().getContextClassLoader())
+                        .getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot load JDBC driver " + driverClass, e);
+            }
+        }
+        return delegate;
+    }
+
+    private RequestTracing tracing() {
+        if(tracing == null) {
+            // the pool opens its first connections while the application is still starting
+            var container = Arc.container();
+            if(container == null || !container.isRunning()) {
+                return null;
+            }
+            tracing = container.instance(RequestTracing.class).get();
+        }
+        return tracing;
+    }
+
+    <T> T trace(String system, String sql, JdbcCall<T> call) throws SQLException {
+        RequestTracing tracing = tracing();
+        Context parent = tracing == null ? null : tracing.parent();
+        if(parent == null || !Span.fromContext(parent).getSpanContext().isValid()) {
+            return call.call();
+        }
+
+        String text = sql == null ? "" : sql;
+        Span span = tracing.tracer().spanBuilder(operation(text))
+                .setParent(parent)
+                .setSpanKind(SpanKind.CLIENT)
+                .setAttribute(DB_SYSTEM, system)
+                .setAttribute(DB_STATEMENT, text)
+                .startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            return call.call();
+        } catch (Throwable e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private static String operation(String text) {
+        String trimmed = text.stripLeading();
+        int end = 0;
+        while(end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? "JDBC" : trimmed.substring(0, end).toUpperCase(Locale.ROOT);
+    }
+
+    @FunctionalInterface
+    interface JdbcCall<T> {
+        T call() throws SQLException;
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.lucasgomescosta.quarkussocial.admission;
+
+import io.github.lucasgomescosta.quarkussocial.rest.dto.CreateUserRequest;
+import io.github.lucasgomescosta.quarkussocial.routing.ReplicaRoutingFilter;
+import io.github.lucasgomescosta.quarkussocial.routing.RoutingConfiguration;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class AdmissionFilterTest {
+
+    @Inject
+    AdmissionControl admissionControl;
+    @ConfigProperty(name = "social.admission.writes.max-in-flight")
+    int maxWrites;
+
+    List<AdmissionControl.Permit> held = new ArrayList<>();
+
+    @AfterEach
+    public void releaseHeld() {
+        held.forEach(AdmissionControl.Permit::release);
+    }
+
+    @Test
+    @DisplayName("should shed reads with 503 and Retry-After once the read budget is exhausted")
+    public void shedReadsTest() throws InterruptedException {
+        holdAll(AdmissionControl.Budget.READ);
+
+        given()
+            .when()
+                .get("/users")
+            .then()
+                .statusCode(503)
+                .header("Retry-After", "1");
+
+        // writes have their own budget
+        var user = new CreateUserRequest();
+        user.setName("Fulano");
+        user.setAge(30);
+        given()
+                .contentType(ContentType.JSON)
+                .body(user)
+            .when()
+                .post("/users")
+            .then()
+                .statusCode(201);
+
+        releaseHeld();
+        given()
+            .when()
+                .get("/users")
+            .then()
+                .statusCode(200);
+    }
+
+    @Test
+    @DisplayName("should give the slot back after each request")
+    public void releaseTest() throws InterruptedException {
+        for (int i = 0; i < maxWrites * 2; i++) {
+            var user = new CreateUserRequest();
+            user.setName("Fulano");
+            user.setAge(30);
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(user)
+                .when()
+                    .post("/users")
+                .then()
+                    .statusCode(201);
+        }
+
+        holdAll(AdmissionControl.Budget.WRITE);
+        assertEquals(maxWrites, held.size());
+    }
+
+    @Test
+    @DisplayName("should count reads kept on the primary after a write against the write budget")
+    public void readAfterWriteTest() throws InterruptedException {
+        holdAll(AdmissionControl.Budget.WRITE);
+
+        given()
+                .cookie(ReplicaRoutingFilter.READ_PRIMARY_UNTIL, System.currentTimeMillis() + 60_000)
+            .when()
+                .get("/users")
+            .then()
+                .statusCode(503);
+
+        given()
+            .when()
+                .get("/users")
+            .then()
+                .statusCode(200);
+    }
+
+    @Test
+    @DisplayName("should report budgets larger than the pools they draw from")
+    public void exceededPoolsTest() {
+        var primaryOnly = Map.of(RoutingConfiguration.PRIMARY, 10);
+
+        assertTrue(AdmissionControl.exceededPools(8, 4, primaryOnly, 8).isEmpty());
+        assertEquals(1, AdmissionControl.exceededPools(9, 4, primaryOnly, 8).size());
+        assertEquals(1, AdmissionControl.exceededPools(8, 11, primaryOnly, 8).size());
+        // without a replica reads and writes share the primary
+        assertEquals(1, AdmissionControl.exceededPools(8, 4, primaryOnly, null).size());
+        assertEquals(1, AdmissionControl.exceededPools(2, 4, Map.of(RoutingConfiguration.PRIMARY, 10, "shard1", 3), 8).size());
+    }
+
+    private void holdAll(AdmissionControl.Budget budget) throws InterruptedException {
+        AdmissionControl.Permit permit;
+        while((permit = admissionControl.tryAcquire(budget)) != null) {
+            held.add(permit);
+        }
+    }
+}
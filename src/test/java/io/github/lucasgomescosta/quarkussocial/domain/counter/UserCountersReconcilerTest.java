@@ -0,0 +1,121 @@
+package io.github.lucasgomescosta.quarkussocial.domain.counter;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.FollowerRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.PostRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class UserCountersReconcilerTest {
+
+    @Inject
+    UserCountersReconciler reconciler;
+    @Inject
+    UserRepository userRepository;
+    @Inject
+    FollowerRepository followerRepository;
+    @Inject
+    PostRepository postRepository;
+    @Inject
+    EntityManager entityManager;
+
+    Long userId;
+    Long followerId;
+
+    @BeforeEach
+    @Transactional
+    public void setUP() {
+        var user = new User();
+        user.setAge(30);
+        user.setName("fulano");
+        userRepository.persist(user);
+        userId = user.getId();
+
+        var follower = new User();
+        follower.setAge(31);
+        follower.setName("cicrano");
+        userRepository.persist(follower);
+        followerId = follower.getId();
+    }
+
+    @Test
+    @DisplayName("should keep counters up to date on follow and unfollow")
+    public void followCountersTest() {
+        follow();
+        assertCounters(userId, 1, 0, 0);
+        assertCounters(followerId, 0, 1, 0);
+
+        // following again changes nothing
+        follow();
+        assertCounters(userId, 1, 0, 0);
+
+        unfollow();
+        assertCounters(userId, 0, 0, 0);
+        assertCounters(followerId, 0, 0, 0);
+    }
+
+    @Test
+    @DisplayName("should repair drifted counters")
+    public void reconcileTest() {
+        follow();
+        createPostWithoutCounter();
+        corruptCounters();
+
+        assertTrue(reconciler.reconcile() >= 2);
+
+        assertCounters(userId, 1, 0, 1);
+        assertCounters(followerId, 0, 1, 0);
+        assertEquals(0, reconciler.reconcile());
+    }
+
+    private void assertCounters(Long id, long followers, long following, long posts) {
+        User user = findUser(id);
+        assertEquals(followers, user.getFollowersCount());
+        assertEquals(following, user.getFollowingCount());
+        assertEquals(posts, user.getPostsCount());
+    }
+
+    @Transactional
+    User findUser(Long id) {
+        return userRepository.findById(id);
+    }
+
+    @Transactional
+    void follow() {
+        followerRepository.follow(userRepository.findById(userId), userRepository.findById(followerId));
+    }
+
+    @Transactional
+    void unfollow() {
+        followerRepository.deleteByFollowerAndUser(followerId, userId);
+    }
+
+    @Transactional
+    void createPostWithoutCounter() {
+        var post = new Post();
+        post.setText("untracked post");
+        post.setUser(userRepository.findById(userId));
+        postRepository.persist(post);
+    }
+
+    @Transactional
+    void corruptCounters() {
+        entityManager
+                .createNativeQuery("update users set followers_count = 7, following_count = 7, posts_count = 7 " +
+                        "where id in (:userId, :followerId)")
+                .setParameter("userId", userId)
+                .setParameter("followerId", followerId)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,137 @@
+package io.github.lucasgomescosta.quarkussocial.domain.graph;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.FollowerRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class FollowGraphCacheTest {
+
+    @Inject
+    FollowGraphCache cache;
+    @Inject
+    UserRepository userRepository;
+    @Inject
+    FollowerRepository followerRepository;
+    @Inject
+    FollowGraphListener listener;
+    @Inject
+    MeterRegistry registry;
+
+    Long userId;
+    Long followerId;
+
+    @BeforeEach
+    @Transactional
+    public void setUP() {
+        var user = new User();
+        user.setAge(30);
+        user.setName("fulano");
+        userRepository.persist(user);
+        userId = user.getId();
+
+        var follower = new User();
+        follower.setAge(31);
+        follower.setName("cicrano");
+        userRepository.persist(follower);
+        followerId = follower.getId();
+    }
+
+    @Test
+    @DisplayName("should load followers once and then answer from memory")
+    public void hitAfterMissTest() {
+        long misses = cache.getMisses();
+        long hits = cache.getHits();
+
+        assertFalse(cache.follows(followerId, userId));
+        assertFalse(cache.follows(followerId, userId));
+
+        assertEquals(misses + 1, cache.getMisses());
+        assertEquals(hits + 1, cache.getHits());
+    }
+
+    @Test
+    @DisplayName("should reflect committed follows and unfollows")
+    public void updateOnCommitTest() {
+        assertFalse(cache.follows(followerId, userId));
+
+        follow();
+        assertTrue(cache.follows(followerId, userId));
+
+        unfollow();
+        assertFalse(cache.follows(followerId, userId));
+    }
+
+    @Test
+    @DisplayName("should keep answering right while many changes are folded into an entry")
+    public void manyChangesTest() {
+        assertFalse(cache.follows(followerId, userId));
+
+        // ids of no real user, only the cached entry is patched
+        long first = Long.MAX_VALUE - 1000;
+        for (long id = first; id < first + 200; id++) {
+            cache.onFollowEdgeChanged(new FollowEdgeChanged(userId, id, true));
+        }
+        for (long id = first; id < first + 200; id += 2) {
+            cache.onFollowEdgeChanged(new FollowEdgeChanged(userId, id, false));
+        }
+
+        long hits = cache.getHits();
+        for (long id = first; id < first + 200; id++) {
+            assertEquals(id % 2 != first % 2, cache.follows(id, userId));
+        }
+        assertEquals(hits + 200, cache.getHits());
+    }
+
+    @Test
+    @DisplayName("should apply the changes other instances notify and skip its own")
+    public void notifiedChangesTest() {
+        assertFalse(cache.follows(followerId, userId));
+
+        listener.apply("other-instance:" + userId + ":" + followerId + ":1");
+        assertTrue(cache.follows(followerId, userId));
+
+        listener.apply(listener.payload(new FollowEdgeChanged(userId, followerId, false)));
+        assertTrue(cache.follows(followerId, userId));
+
+        listener.apply("other-instance:" + userId + ":" + followerId + ":0");
+        assertFalse(cache.follows(followerId, userId));
+    }
+
+    @Test
+    @DisplayName("should publish hits and misses as meters")
+    public void metersTest() {
+        cache.follows(followerId, userId);
+        cache.follows(followerId, userId);
+
+        assertEquals(cache.getHits(), gets("hit"));
+        assertEquals(cache.getMisses(), gets("miss"));
+    }
+
+    private long gets(String result) {
+        return (long) registry.get("cache.gets")
+                .tag("cache", FollowGraphCache.CACHE_NAME)
+                .tag("result", result)
+                .functionCounter().count();
+    }
+
+    @Transactional
+    void follow() {
+        followerRepository.follow(userRepository.findById(userId), userRepository.findById(followerId));
+    }
+
+    @Transactional
+    void unfollow() {
+        followerRepository.deleteByFollowerAndUser(followerId, userId);
+    }
+}
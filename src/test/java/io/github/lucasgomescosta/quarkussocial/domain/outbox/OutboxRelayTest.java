@@ -0,0 +1,159 @@
+package io.github.lucasgomescosta.quarkussocial.domain.outbox;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.OutboxEvent;
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.OutboxRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.CreatePostRequest;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.FollowerRequest;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.json.Json;
+import javax.transaction.Transactional;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@TestProfile(OutboxRelayTest.InMemoryOutbox.class)
+class OutboxRelayTest {
+
+    public static class InMemoryOutbox implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "social.outbox.enabled", "true",
+                    "social.outbox.sink", InMemoryOutboxSink.NAME,
+                    "social.outbox.relay.every", "1h",
+                    "social.outbox.relay.batch-size", "2");
+        }
+    }
+
+    @Inject
+    OutboxRelay relay;
+    @Inject
+    InMemoryOutboxSink sink;
+    @Inject
+    OutboxRepository outboxRepository;
+    @Inject
+    UserRepository userRepository;
+
+    Long userId;
+    Long followerId;
+
+    @BeforeEach
+    @Transactional
+    public void setUP() {
+        var user = new User();
+        user.setAge(30);
+        user.setName("fulano");
+        userRepository.persist(user);
+        userId = user.getId();
+
+        var follower = new User();
+        follower.setAge(31);
+        follower.setName("cicrano");
+        userRepository.persist(follower);
+        followerId = follower.getId();
+    }
+
+    @Test
+    @DisplayName("should publish post and follow changes in order and empty the outbox")
+    public void relayTest() {
+        relay.relay();
+        String consumer = "relayTest";
+        sink.poll(consumer, Integer.MAX_VALUE);
+
+        follow();
+        createPost("first");
+        createPost("second");
+        unfollow();
+
+        // the scheduled relay may have published some of them already
+        relay.relay();
+        assertEquals(0, outboxRepository.count());
+
+        List<ChangeEvent> events = sink.poll(consumer, 10).stream()
+                .filter(event -> event.getUserId().equals(userId))
+                .collect(Collectors.toList());
+        assertEquals(List.of(OutboxEvent.USER_FOLLOWED, OutboxEvent.POST_CREATED, OutboxEvent.POST_CREATED,
+                OutboxEvent.USER_UNFOLLOWED), events.stream().map(ChangeEvent::getType).collect(Collectors.toList()));
+        for (int i = 1; i < events.size(); i++) {
+            assertTrue(events.get(i - 1).getId() < events.get(i).getId());
+        }
+
+        var followed = Json.createReader(new StringReader(events.get(0).getPayload())).readObject();
+        assertEquals(followerId.longValue(), followed.getJsonNumber("followerId").longValue());
+        var post = Json.createReader(new StringReader(events.get(1).getPayload())).readObject();
+        assertEquals("first", post.getString("text"));
+
+        // the consumer's offset moved past what it read
+        assertTrue(sink.poll(consumer, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("should not write an event for an unfollow that removed nothing")
+    public void noChangeNoEventTest() {
+        relay.relay();
+
+        given()
+                .pathParam("userId", userId)
+                .queryParam("followerId", followerId)
+            .when()
+                .delete("/users/{userId}/followers")
+            .then()
+                .statusCode(204);
+
+        relay.relay();
+        assertEquals(0, outboxRepository.count());
+        assertTrue(sink.poll("noChangeNoEventTest", Integer.MAX_VALUE).stream()
+                .noneMatch(event -> event.getUserId().equals(userId)));
+    }
+
+    private void follow() {
+        var request = new FollowerRequest();
+        request.setFollowerId(followerId);
+        given()
+                .contentType(ContentType.JSON)
+                .body(request)
+                .pathParam("userId", userId)
+            .when()
+                .put("/users/{userId}/followers")
+            .then()
+                .statusCode(204);
+    }
+
+    private void unfollow() {
+        given()
+                .pathParam("userId", userId)
+                .queryParam("followerId", followerId)
+            .when()
+                .delete("/users/{userId}/followers")
+            .then()
+                .statusCode(204);
+    }
+
+    private void createPost(String text) {
+        var post = new CreatePostRequest();
+        post.setText(text);
+        given()
+                .contentType(ContentType.JSON)
+                .body(post)
+                .pathParam("userId", userId)
+            .when()
+                .post("/users/{userId}/posts")
+            .then()
+                .statusCode(201);
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.lucasgomescosta.quarkussocial.domain.sequence;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Sequences;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class SequenceIncrementValidatorTest {
+
+    @Inject
+    SequenceIncrementValidator validator;
+    @Inject
+    EntityManager entityManager;
+
+    @Test
+    @DisplayName("should accept sequences created with the configured allocation size")
+    public void matchingIncrementTest() {
+        assertDoesNotThrow(validator::validate);
+    }
+
+    @Test
+    @DisplayName("should fail when a sequence increment differs from the allocation size")
+    public void mismatchedIncrementTest() {
+        setIncrement("posts_seq", Sequences.allocationSize() + 1);
+        try {
+            var e = assertThrows(IllegalStateException.class, validator::validate);
+            assertTrue(e.getMessage().contains("posts_seq"));
+        } finally {
+            setIncrement("posts_seq", Sequences.allocationSize());
+        }
+    }
+
+    @Transactional
+    void setIncrement(String sequence, int increment) {
+        entityManager.createNativeQuery("alter sequence " + sequence + " increment by " + increment).executeUpdate();
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.lucasgomescosta.quarkussocial.metrics;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+
+@QuarkusTest
+class MetricsTest {
+
+    @Inject
+    UserRepository userRepository;
+
+    Long userId;
+
+    @BeforeEach
+    @Transactional
+    public void setUP() {
+        var user = new User();
+        user.setAge(30);
+        user.setName("fulano");
+        userRepository.persist(user);
+        userId = user.getId();
+    }
+
+    @Test
+    @DisplayName("should publish request, repository, pool and hibernate metrics to prometheus")
+    public void prometheusScrapeTest() {
+        given()
+                .pathParam("userId", userId)
+            .when()
+                .get("/users/{userId}/followers")
+            .then()
+                .statusCode(200);
+
+        given()
+            .when()
+                .get("/q/metrics")
+            .then()
+                .statusCode(200)
+                .body(containsString("social_rest_seconds_bucket{"))
+                .body(containsString("method=\"listFollowers\""))
+                .body(containsString("social_repository_seconds_count{"))
+                .body(containsString("agroal_"))
+                .body(containsString("hibernate_"));
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.CreateUserRequest;
+import io.quarkus.test.common.http.TestHTTPEndpoint;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@TestHTTPEndpoint(AdminCacheResource.class)
+class AdminCacheResourceTest {
+
+    @Inject
+    UserRepository userRepository;
+    @Inject
+    SessionFactory sessionFactory;
+
+    Long userId;
+
+    @BeforeEach
+    @Transactional
+    public void setUP() {
+        var user = new User();
+        user.setAge(30);
+        user.setName("fulano");
+        userRepository.persist(user);
+        userId = user.getId();
+    }
+
+    @Test
+    @DisplayName("should read a user from the second-level cache after the first lookup")
+    public void userCacheHitTest() {
+        findUser();
+
+        var statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        findUser();
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, userCacheHits());
+    }
+
+    @Test
+    @DisplayName("should not serve a stale user after an update")
+    public void invalidateOnUpdateTest() {
+        findUser();
+
+        var body = new CreateUserRequest();
+        body.setName("beltrano");
+        body.setAge(40);
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body(body)
+                    .basePath("/users")
+                .when()
+                    .put("/{id}", userId)
+                .then()
+                    .statusCode(204);
+
+        assertEquals("beltrano", findUser().getName());
+    }
+
+    private long userCacheHits() {
+        return given()
+                .when()
+                    .get()
+                .then()
+                    .statusCode(200)
+                    .extract().jsonPath().getLong("users.hits");
+    }
+
+    @Transactional
+    User findUser() {
+        return userRepository.findById(userId);
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.PostRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.quarkus.test.common.http.TestHTTPEndpoint;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@TestHTTPEndpoint(AdminPostResource.class)
+class AdminPostResourceTest {
+
+    @Inject
+    UserRepository userRepository;
+    @Inject
+    PostRepository postRepository;
+
+    Long userId;
+
+    @BeforeEach
+    @Transactional
+    public void setUP() {
+        var user = new User();
+        user.setAge(30);
+        user.setName("fulano");
+        userRepository.persist(user);
+        userId = user.getId();
+    }
+
+    @Test
+    @DisplayName("should import posts of several users")
+    public void bulkJsonArrayTest() {
+        var body = "[{\"userId\": " + userId + ", \"text\": \"one\"}, {\"text\": \"no user\"}]";
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body(body)
+                .when()
+                    .post()
+                .then()
+                    .statusCode(200)
+                    .body("accepted", Matchers.is(1))
+                    .body("rejected", Matchers.is(1))
+                    .body("errors[0].message", Matchers.is("userId is Required"));
+
+        assertEquals(1, postRepository.count("user.id", userId));
+    }
+
+    @Test
+    @DisplayName("should reject bulk posts of inexistent users")
+    public void bulkInexistentUserTest() {
+        var body = "{\"userId\": " + userId + ", \"text\": \"one\"}\n" +
+                "{\"userId\": 999, \"text\": \"two\"}\n";
+
+        given()
+                    .contentType(PostBulkImporter.NDJSON)
+                    .body(body.getBytes(StandardCharsets.UTF_8))
+                .when()
+                    .post()
+                .then()
+                    .statusCode(200)
+                    .body("accepted", Matchers.is(1))
+                    .body("rejected", Matchers.is(1))
+                    .body("errors[0].line", Matchers.is(2))
+                    .body("errors[0].message", Matchers.is("Inexistent userId"));
+    }
+}
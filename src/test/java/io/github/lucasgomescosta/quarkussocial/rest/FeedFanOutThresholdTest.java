@@ -0,0 +1,122 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.CreatePostRequest;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.FollowerRequest;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+
+@QuarkusTest
+@TestProfile(FeedFanOutThresholdTest.OneFollowerFanOut.class)
+class FeedFanOutThresholdTest {
+
+    public static class OneFollowerFanOut implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("social.feed.fan-out.max-followers", "1");
+        }
+    }
+
+    @Inject
+    UserRepository userRepository;
+
+    Long authorId;
+    Long readerId;
+    Long otherReaderId;
+
+    @BeforeEach
+    @Transactional
+    public void setUP() {
+        authorId = user("author");
+        readerId = user("reader");
+        otherReaderId = user("other reader");
+    }
+
+    @Test
+    @DisplayName("should list each post once after the author goes above the fan-out threshold")
+    public void feedAboveThresholdTest() {
+        follow(readerId);
+        post("pushed post");
+
+        // a second follower moves the author to fan-out on read
+        follow(otherReaderId);
+        post("merged post");
+
+        given()
+                .when()
+                    .get("/users/{userId}/feed", readerId)
+                .then()
+                    .statusCode(200)
+                    .body("content.text", Matchers.contains("merged post", "pushed post"));
+    }
+
+    @Test
+    @DisplayName("should keep the posts made above the fan-out threshold after the author drops below it")
+    public void feedBackBelowThresholdTest() {
+        follow(readerId);
+        follow(otherReaderId);
+        post("merged post");
+
+        given()
+                    .queryParam("followerId", otherReaderId)
+                .when()
+                    .delete("/users/{userId}/followers", authorId)
+                .then()
+                    .statusCode(204);
+        post("pushed post");
+
+        given()
+                .when()
+                    .get("/users/{userId}/feed", readerId)
+                .then()
+                    .statusCode(200)
+                    .body("content.text", Matchers.contains("pushed post", "merged post"));
+    }
+
+    private Long user(String name) {
+        var user = new User();
+        user.setAge(30);
+        user.setName(name);
+        userRepository.persist(user);
+        return user.getId();
+    }
+
+    private void follow(Long followerId) {
+        var body = new FollowerRequest();
+        body.setFollowerId(followerId);
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body(body)
+                .when()
+                    .put("/users/{userId}/followers", authorId)
+                .then()
+                    .statusCode(204);
+    }
+
+    private void post(String text) {
+        var postRequest = new CreatePostRequest();
+        postRequest.setText(text);
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body(postRequest)
+                .when()
+                    .post("/users/{userId}/posts", authorId)
+                .then()
+                    .statusCode(201);
+    }
+}
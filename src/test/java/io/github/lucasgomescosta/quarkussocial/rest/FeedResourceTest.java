@@ -0,0 +1,122 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.PostRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.CreatePostRequest;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.FollowerRequest;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+
+import static io.restassured.RestAssured.given;
+
+@QuarkusTest
+class FeedResourceTest {
+
+    @Inject
+    UserRepository userRepository;
+    @Inject
+    PostRepository postRepository;
+
+    Long authorId;
+    Long readerId;
+
+    @BeforeEach
+    @Transactional
+    public void setUP() {
+        var author = new User();
+        author.setAge(30);
+        author.setName("fulano");
+        userRepository.persist(author);
+        authorId = author.getId();
+
+        //postagem anterior ao follow
+        Post post = new Post();
+        post.setText("Old post");
+        post.setUser(author);
+        postRepository.persist(post);
+
+        var reader = new User();
+        reader.setAge(31);
+        reader.setName("cicrano");
+        userRepository.persist(reader);
+        readerId = reader.getId();
+    }
+
+    @Test
+    @DisplayName("should return 404 when user doesn't exist")
+    public void feedUserNotFoundTest() {
+        given()
+                .when()
+                    .get("/users/{userId}/feed", 999)
+                .then()
+                    .statusCode(404);
+    }
+
+    @Test
+    @DisplayName("should build the feed from followed users' posts")
+    public void feedTest() {
+        follow();
+
+        var postRequest = new CreatePostRequest();
+        postRequest.setText("New post");
+        given()
+                    .contentType(ContentType.JSON)
+                    .body(postRequest)
+                .when()
+                    .post("/users/{userId}/posts", authorId)
+                .then()
+                    .statusCode(201);
+
+        given()
+                .when()
+                    .get("/users/{userId}/feed", readerId)
+                .then()
+                    .statusCode(200)
+                    .body("content.size()", Matchers.is(2))
+                    .body("content[0].text", Matchers.is("New post"))
+                    .body("content[0].userId", Matchers.is(authorId.intValue()))
+                    .body("content[1].text", Matchers.is("Old post"));
+    }
+
+    @Test
+    @DisplayName("should remove posts from the feed after unfollowing")
+    public void feedAfterUnfollowTest() {
+        follow();
+
+        given()
+                    .queryParam("followerId", readerId)
+                .when()
+                    .delete("/users/{userId}/followers", authorId)
+                .then()
+                    .statusCode(204);
+
+        given()
+                .when()
+                    .get("/users/{userId}/feed", readerId)
+                .then()
+                    .statusCode(200)
+                    .body("content.size()", Matchers.is(0));
+    }
+
+    private void follow() {
+        var body = new FollowerRequest();
+        body.setFollowerId(readerId);
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body(body)
+                .when()
+                    .put("/users/{userId}/followers", authorId)
+                .then()
+                    .statusCode(204);
+    }
+}
@@ -1,6 +1,5 @@
 package io.github.lucasgomescosta.quarkussocial.rest;
 
-import io.github.lucasgomescosta.quarkussocial.domain.model.Follower;
 import io.github.lucasgomescosta.quarkussocial.domain.model.User;
 import io.github.lucasgomescosta.quarkussocial.domain.repository.FollowerRepository;
 import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
@@ -9,6 +8,8 @@ import io.quarkus.test.common.http.TestHTTPEndpoint;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
 import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.*;
 
 import javax.inject.Inject;
@@ -26,6 +27,8 @@ class FollowerResourceTest {
     private UserRepository userRepository;
     @Inject
     private FollowerRepository followerRepository;
+    @Inject
+    SessionFactory sessionFactory;
 
     Long userId;
     Long followerId;
@@ -50,10 +53,7 @@ class FollowerResourceTest {
         followerId = follower.getId();
 
         //create a follower
-        var followerEntity = new Follower();
-        followerEntity.setFollower(follower);
-        followerEntity.setUser(user);
-        followerRepository.persist(followerEntity);
+        followerRepository.follow(user, follower);
     }
 
     @Test
@@ -109,6 +109,25 @@ class FollowerResourceTest {
                     .statusCode(Response.Status.NO_CONTENT.getStatusCode());
     }
 
+    @Test
+    @DisplayName("should not duplicate an existing follow")
+    public void followTwiceTest() {
+
+        var body = new FollowerRequest();
+        body.setFollowerId(followerId);
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body(body)
+                    .pathParam("userId", userId)
+                .when()
+                    .put()
+                .then()
+                    .statusCode(Response.Status.NO_CONTENT.getStatusCode());
+
+        assertEquals(1, followerRepository.count("user.id", userId));
+    }
+
     @Test
     @DisplayName("should return 404 on list user followers and User id doesn't exist ")
     public void userNotFoundWhenListingFollowersTest() {
@@ -144,6 +163,142 @@ class FollowerResourceTest {
         assertEquals(1, followersContent.size());
     }
 
+    @Test
+    @DisplayName("should page through a user's followers")
+    public void listFollowersPageTest() {
+
+        addFollowers(4);
+
+        var firstPage =
+            given()
+                        .pathParam("userId", userId)
+                        .queryParam("limit", 3)
+                    .when()
+                        .get()
+                    .then()
+                        .statusCode(Response.Status.OK.getStatusCode())
+                        .body("followersCount", Matchers.is(5))
+                        .body("content.size()", Matchers.is(3))
+                    .extract().response();
+
+        Long next = firstPage.jsonPath().getLong("next");
+        assertEquals(firstPage.jsonPath().getLong("content[2].id"), next);
+
+        given()
+                    .pathParam("userId", userId)
+                    .queryParam("limit", 3)
+                    .queryParam("after", next)
+                .when()
+                    .get()
+                .then()
+                    .statusCode(Response.Status.OK.getStatusCode())
+                    .body("followersCount", Matchers.is(5))
+                    .body("content.size()", Matchers.is(2))
+                    .body("next", Matchers.nullValue());
+    }
+
+    @Test
+    @DisplayName("should only count a user's followers")
+    public void countFollowersTest() {
+
+        given()
+                    .pathParam("userId", userId)
+                    .queryParam("countOnly", true)
+                .when()
+                    .get()
+                .then()
+                    .statusCode(Response.Status.OK.getStatusCode())
+                    .body("followersCount", Matchers.is(1))
+                    .body("content", Matchers.nullValue());
+    }
+
+    @Test
+    @DisplayName("should answer 304 while the followers have not changed")
+    public void listFollowersNotModifiedTest() {
+
+        String etag =
+            given()
+                        .pathParam("userId", userId)
+                    .when()
+                        .get()
+                    .then()
+                        .statusCode(Response.Status.OK.getStatusCode())
+                        .extract().header("ETag");
+        assertNotNull(etag);
+
+        given()
+                    .pathParam("userId", userId)
+                    .header("If-None-Match", etag)
+                .when()
+                    .get()
+                .then()
+                    .statusCode(Response.Status.NOT_MODIFIED.getStatusCode());
+
+        given()
+                    .pathParam("userId", userId)
+                    .queryParam("followerId", followerId)
+                .when()
+                    .delete()
+                .then()
+                    .statusCode(Response.Status.NO_CONTENT.getStatusCode());
+
+        given()
+                    .pathParam("userId", userId)
+                    .header("If-None-Match", etag)
+                .when()
+                    .get()
+                .then()
+                    .statusCode(Response.Status.OK.getStatusCode())
+                    .body("followersCount", Matchers.is(0));
+    }
+
+    @Test
+    @DisplayName("should list followers with the same number of statements whatever the follower count")
+    public void listFollowersStatementCountTest() {
+
+        long statementsForOneFollower = countStatementsListingFollowers();
+
+        addFollowers(10);
+        long statementsForElevenFollowers = countStatementsListingFollowers();
+
+        assertEquals(statementsForOneFollower, statementsForElevenFollowers);
+    }
+
+    private long countStatementsListingFollowers() {
+        // same cache state for every count: the user is read from the second-level cache
+        given()
+                    .pathParam("userId", userId)
+                .when()
+                    .get()
+                .then()
+                    .statusCode(Response.Status.OK.getStatusCode());
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        given()
+                    .pathParam("userId", userId)
+                .when()
+                    .get()
+                .then()
+                    .statusCode(Response.Status.OK.getStatusCode());
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Transactional
+    void addFollowers(int count) {
+        var user = userRepository.findById(userId);
+        for (int i = 0; i < count; i++) {
+            var follower = new User();
+            follower.setAge(20 + i);
+            follower.setName("follower " + i);
+            userRepository.persist(follower);
+
+            followerRepository.follow(user, follower);
+        }
+    }
+
     @Test
     @DisplayName("should return 404 on unfollow user and User id doesn't exist ")
     public void userNotFoundWhenUnfollowingAUserTest() {
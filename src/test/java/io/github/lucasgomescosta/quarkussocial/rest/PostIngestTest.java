@@ -0,0 +1,154 @@
+package io.github.lucasgomescosta.quarkussocial.rest;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Follower;
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.FollowerRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.CreatePostRequest;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@QuarkusTest
+@TestProfile(PostIngestTest.AsyncIngest.class)
+class PostIngestTest {
+
+    public static class AsyncIngest implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "social.posts.ingest.mode", PostIngestPipeline.ASYNC,
+                    "social.posts.ingest.ack", PostIngestPipeline.COMMITTED);
+        }
+    }
+
+    @Inject
+    UserRepository userRepository;
+    @Inject
+    FollowerRepository followerRepository;
+    @Inject
+    PostIngestPipeline ingestPipeline;
+
+    Long userId;
+    Long followerId;
+
+    @BeforeEach
+    @Transactional
+    public void setUP() {
+        var user = new User();
+        user.setAge(30);
+        user.setName("author");
+        userRepository.persist(user);
+        userId = user.getId();
+
+        var follower = new User();
+        follower.setAge(30);
+        follower.setName("reader");
+        userRepository.persist(follower);
+        followerId = follower.getId();
+
+        var edge = new Follower();
+        edge.setUser(user);
+        edge.setFollower(follower);
+        followerRepository.persist(edge);
+    }
+
+    @Test
+    @DisplayName("should accept a post and write it in the background")
+    public void ingestPostTest() {
+        Integer id = given()
+                .contentType(ContentType.JSON)
+                .body(post("queued post"))
+                .pathParam("userId", userId)
+            .when()
+                .post("/users/{userId}/posts")
+            .then()
+                .statusCode(202)
+                .body("dateTime", notNullValue())
+                .extract().path("id");
+
+        given()
+                .pathParam("userId", userId)
+                .header("followerId", followerId)
+            .when()
+                .get("/users/{userId}/posts")
+            .then()
+                .statusCode(200)
+                .body("content.text", contains("queued post"));
+
+        // fanned out like a synchronous post
+        given()
+                .pathParam("userId", followerId)
+            .when()
+                .get("/users/{userId}/feed")
+            .then()
+                .statusCode(200)
+                .body("content.text", contains("queued post"));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(post("next post"))
+                .pathParam("userId", userId)
+            .when()
+                .post("/users/{userId}/posts")
+            .then()
+                .statusCode(202)
+                .body("id", greaterThan(id));
+    }
+
+    @Test
+    @DisplayName("should return 404 when accepting a post of an inexistent user")
+    public void ingestPostForAnInexistentUserTest() {
+        given()
+                .contentType(ContentType.JSON)
+                .body(post("nobody's post"))
+                .pathParam("userId", 999)
+            .when()
+                .post("/users/{userId}/posts")
+            .then()
+                .statusCode(404);
+    }
+
+    @Test
+    @DisplayName("should fail the acknowledgement of a post that could not be written, off the writer thread")
+    public void ingestFailureTest() {
+        var author = new User();
+        author.setId(Long.MAX_VALUE);
+        var post = new Post();
+        post.setId(Long.MAX_VALUE);
+        post.setText("orphan post");
+        post.setDateTime(LocalDateTime.now());
+        post.setUser(author);
+
+        var ackThread = new AtomicReference<String>();
+        var acknowledged = ingestPipeline.submit(post).toCompletableFuture()
+                .whenComplete((written, failure) -> ackThread.set(Thread.currentThread().getName()));
+
+        assertThrows(ExecutionException.class, () -> acknowledged.get(10, TimeUnit.SECONDS));
+        assertNotEquals("post-ingest-writer", ackThread.get());
+    }
+
+    private static CreatePostRequest post(String text) {
+        var post = new CreatePostRequest();
+        post.setText(text);
+        return post;
+    }
+}
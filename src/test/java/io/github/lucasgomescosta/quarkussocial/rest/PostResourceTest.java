@@ -6,10 +6,13 @@ import io.github.lucasgomescosta.quarkussocial.domain.model.User;
 import io.github.lucasgomescosta.quarkussocial.domain.repository.FollowerRepository;
 import io.github.lucasgomescosta.quarkussocial.domain.repository.PostRepository;
 import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.BulkLineError;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.BulkPostResponse;
 import io.github.lucasgomescosta.quarkussocial.rest.dto.CreatePostRequest;
 import io.quarkus.test.common.http.TestHTTPEndpoint;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -18,6 +21,12 @@ import org.junit.jupiter.api.Test;
 import javax.inject.Inject;
 import javax.transaction.Transactional;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import static io.restassured.RestAssured.given;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,6 +40,8 @@ class PostResourceTest {
     FollowerRepository followerRepository;
     @Inject
     PostRepository postRepository;
+    @Inject
+    PostBulkImporter bulkImporter;
 
     Long userId;
     Long userNotFollowerId;
@@ -176,6 +187,300 @@ class PostResourceTest {
                     .get()
                 .then()
                     .statusCode(200)
-                    .body("size()", Matchers.is(1));
+                    .body("content.size()", Matchers.is(1))
+                    .body("next", Matchers.nullValue());
+    }
+
+    @Test
+    @DisplayName("should serve a new post on the cached first page and still check the follower")
+    public void listPostCachedFirstPageTest() {
+        listFirstPage(userFollowerId)
+                .statusCode(200)
+                .body("content.size()", Matchers.is(1));
+
+        var postRequest = new CreatePostRequest();
+        postRequest.setText("Fresh post");
+        given()
+                    .contentType(ContentType.JSON)
+                    .body(postRequest)
+                    .pathParam("userId", userId)
+                .when()
+                    .post()
+                .then()
+                    .statusCode(201);
+
+        listFirstPage(userFollowerId)
+                .statusCode(200)
+                .body("content.size()", Matchers.is(2))
+                .body("content[0].text", Matchers.is("Fresh post"));
+
+        listFirstPage(userNotFollowerId)
+                .statusCode(403);
+    }
+
+    @Test
+    @DisplayName("should answer 304 while the posts have not changed")
+    public void listPostNotModifiedTest() {
+        var response = listFirstPage(userFollowerId)
+                .statusCode(200)
+                .extract().response();
+        String etag = response.getHeader("ETag");
+        String lastModified = response.getHeader("Last-Modified");
+        assertNotNull(etag);
+        assertNotNull(lastModified);
+
+        given()
+                    .pathParam("userId", userId)
+                    .header("followerId", userFollowerId)
+                    .header("If-None-Match", etag)
+                .when()
+                    .get()
+                .then()
+                    .statusCode(304);
+
+        given()
+                    .pathParam("userId", userId)
+                    .header("followerId", userFollowerId)
+                    .header("If-Modified-Since", lastModified)
+                .when()
+                    .get()
+                .then()
+                    .statusCode(304);
+
+        createPosts(1);
+
+        given()
+                    .pathParam("userId", userId)
+                    .header("followerId", userFollowerId)
+                    .header("If-None-Match", etag)
+                .when()
+                    .get()
+                .then()
+                    .statusCode(200);
+    }
+
+    @Test
+    @DisplayName("should not serve a cached first page with the tag of newer posts")
+    public void listPostCachedPageMatchesTagTest() {
+        String etag = listFirstPage(userFollowerId)
+                .statusCode(200)
+                .body("content.size()", Matchers.is(1))
+                .extract().header("ETag");
+
+        // written without the local change event, as by another instance
+        createPost("Written elsewhere", LocalDateTime.now());
+
+        String newEtag = listFirstPage(userFollowerId)
+                .statusCode(200)
+                .body("content.size()", Matchers.is(2))
+                .body("content[0].text", Matchers.is("Written elsewhere"))
+                .extract().header("ETag");
+        assertNotEquals(etag, newEtag);
+    }
+
+    private ValidatableResponse listFirstPage(Long followerId) {
+        return given()
+                    .pathParam("userId", userId)
+                    .header("followerId", followerId)
+                .when()
+                    .get()
+                .then();
+    }
+
+    @Test
+    @DisplayName("should page posts with a cursor")
+    public void listPostPaginationTest() {
+        createPosts(2);
+
+        var firstPage =
+            given()
+                        .pathParam("userId", userId)
+                        .header("followerId", userFollowerId)
+                        .queryParam("limit", 2)
+                    .when()
+                        .get()
+                    .then()
+                        .statusCode(200)
+                        .body("content.size()", Matchers.is(2))
+                        .extract().response();
+
+        String next = firstPage.jsonPath().getString("next");
+        assertNotNull(next);
+
+        given()
+                    .pathParam("userId", userId)
+                    .header("followerId", userFollowerId)
+                    .queryParam("limit", 2)
+                    .queryParam("before", next)
+                .when()
+                    .get()
+                .then()
+                    .statusCode(200)
+                    .body("content.size()", Matchers.is(1))
+                    .body("content[0].text", Matchers.is("Hello"))
+                    .body("next", Matchers.nullValue());
+    }
+
+    @Test
+    @DisplayName("should page past the recent window into older posts")
+    public void listPostOlderThanRecentWindowTest() {
+        createPost("Old", LocalDateTime.now().minusYears(1));
+        createPosts(2);
+
+        String next =
+            given()
+                        .pathParam("userId", userId)
+                        .header("followerId", userFollowerId)
+                        .queryParam("limit", 2)
+                    .when()
+                        .get()
+                    .then()
+                        .statusCode(200)
+                        .body("content.text", Matchers.contains("Post 1", "Post 0"))
+                        .extract().path("next");
+
+        given()
+                    .pathParam("userId", userId)
+                    .header("followerId", userFollowerId)
+                    .queryParam("limit", 2)
+                    .queryParam("before", next)
+                .when()
+                    .get()
+                .then()
+                    .statusCode(200)
+                    .body("content.text", Matchers.contains("Hello", "Old"))
+                    .body("next", Matchers.nullValue());
+    }
+
+    @Test
+    @DisplayName("should return 400 when cursor is invalid")
+    public void listPostInvalidCursorTest() {
+        given()
+                    .pathParam("userId", userId)
+                    .header("followerId", userFollowerId)
+                    .queryParam("before", "not-a-cursor")
+                .when()
+                    .get()
+                .then()
+                    .statusCode(400)
+                    .body(Matchers.is("Invalid cursor"));
+    }
+
+    @Test
+    @DisplayName("should import a JSON array of posts and report invalid items")
+    public void bulkJsonArrayTest() {
+        var body = "[{\"text\": \"one\"}, {\"text\": \"\"}, " +
+                "{\"text\": \"two\", \"dateTime\": \"2020-01-01T10:00:00\"}, {\"text\": \"three\"}]";
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body(body)
+                    .pathParam("userId", userId)
+                .when()
+                    .post("/bulk")
+                .then()
+                    .statusCode(200)
+                    .body("accepted", Matchers.is(3))
+                    .body("rejected", Matchers.is(1))
+                    .body("errors[0].line", Matchers.is(2))
+                    .body("errors[0].message", Matchers.is("Text is Required"));
+
+        assertEquals(4, postRepository.count("user.id", userId));
+    }
+
+    @Test
+    @DisplayName("should reject items that are not objects and keep importing the rest of the array")
+    public void bulkJsonArrayNonObjectItemsTest() {
+        var body = "[{\"text\": \"one\"}, 1, [\"nested\"], \"text\", {\"text\": \"two\"}]";
+        long before = postRepository.count("user.id", userId);
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body(body)
+                    .pathParam("userId", userId)
+                .when()
+                    .post("/bulk")
+                .then()
+                    .statusCode(200)
+                    .body("accepted", Matchers.is(2))
+                    .body("rejected", Matchers.is(3))
+                    .body("errors.line", Matchers.contains(2, 3, 4))
+                    .body("errors[0].message", Matchers.is("Expected a JSON object"));
+
+        assertEquals(before + 2, postRepository.count("user.id", userId));
+    }
+
+    @Test
+    @DisplayName("should report a syntax error at the item it is in, after items that are not objects")
+    public void bulkJsonArraySyntaxErrorTest() {
+        var body = "[{\"text\": \"one\"}, 1, [\"nested\"], {\"text\": }]";
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body(body)
+                    .pathParam("userId", userId)
+                .when()
+                    .post("/bulk")
+                .then()
+                    .statusCode(200)
+                    .body("accepted", Matchers.is(1))
+                    .body("rejected", Matchers.is(3))
+                    .body("errors.line", Matchers.contains(2, 3, 4))
+                    .body("errors[2].message", Matchers.startsWith("Malformed JSON"));
+    }
+
+    @Test
+    @DisplayName("should import newline delimited posts and skip malformed lines")
+    public void bulkNdjsonTest() {
+        var body = "{\"text\": \"one\"}\n{not json\n{\"text\": \"two\"}\n";
+
+        given()
+                    .contentType(PostBulkImporter.NDJSON)
+                    .body(body.getBytes(StandardCharsets.UTF_8))
+                    .pathParam("userId", userId)
+                .when()
+                    .post("/bulk")
+                .then()
+                    .statusCode(200)
+                    .body("accepted", Matchers.is(2))
+                    .body("rejected", Matchers.is(1))
+                    .body("errors[0].line", Matchers.is(2));
+    }
+
+    @Test
+    @DisplayName("should reject the lines of a chunk that cannot be written instead of failing the import")
+    public void bulkChunkWriteFailureTest() {
+        // an author deleted after the import started, so every chunk fails on the foreign key
+        var body = "{\"text\": \"one\"}\n{\"text\": \"two\"}\n{\"text\": \"three\"}\n";
+
+        BulkPostResponse report = bulkImporter.importNdjson(Long.MAX_VALUE,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(0, report.getAccepted());
+        assertEquals(3, report.getRejected());
+        assertEquals(List.of(1L, 2L, 3L), report.getErrors().stream()
+                .map(BulkLineError::getLine)
+                .collect(Collectors.toList()));
+        assertEquals("Could not write the post", report.getErrors().get(0).getMessage());
+    }
+
+    @Transactional
+    void createPost(String text, LocalDateTime dateTime) {
+        Post post = new Post();
+        post.setText(text);
+        post.setDateTime(dateTime);
+        post.setUser(userRepository.findById(userId));
+        postRepository.persist(post);
+    }
+
+    @Transactional
+    void createPosts(int count) {
+        var user = userRepository.findById(userId);
+        for (int i = 0; i < count; i++) {
+            Post post = new Post();
+            post.setText("Post " + i);
+            post.setUser(user);
+            postRepository.persist(post);
+        }
     }
 }
\ No newline at end of file
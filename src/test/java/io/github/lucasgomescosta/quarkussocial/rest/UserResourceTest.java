@@ -42,6 +42,8 @@ class UserResourceTest {
 
         assertEquals(201, response.statusCode());
         assertNotNull(response.jsonPath().getString("id"));
+        // internal to the follower listing's cache keys
+        assertNull(response.jsonPath().get("followersVersion"));
 
     }
 
@@ -81,9 +83,75 @@ class UserResourceTest {
                    .get(apiURL)
                 .then()
                    .statusCode(200)
-                .body("size()", Matchers.is(1));
+                .body("size()", Matchers.is(1))
+                .body("[0]", Matchers.not(Matchers.hasKey("followersVersion")));
 
 
 
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("should page through users with a next link")
+    @Order(4)
+    public void listUsersPageTest() {
+        createUser("beltrano", 40);
+        createUser("ciclano", 50);
+
+        var firstPage =
+                given()
+                    .queryParam("limit", 2)
+                .when()
+                    .get(apiURL)
+                .then()
+                    .statusCode(200)
+                    .body("size()", Matchers.is(2))
+                    .extract().response();
+
+        String next = firstPage.getHeader("Link");
+        assertNotNull(next);
+        String after = next.replaceAll(".*after=(\\d+).*", "$1");
+
+        given()
+                    .queryParam("limit", 2)
+                    .queryParam("after", after)
+                .when()
+                    .get(apiURL)
+                .then()
+                    .statusCode(200)
+                    .body("size()", Matchers.is(1))
+                    .header("Link", Matchers.nullValue());
+    }
+
+    @Test
+    @DisplayName("should export users as newline delimited JSON")
+    @Order(5)
+    public void exportUsersTest() {
+
+        var response =
+                given()
+                .when()
+                    .get(apiURL + "/export")
+                .then()
+                    .statusCode(200)
+                    .contentType(PostBulkImporter.NDJSON)
+                    .extract().response();
+
+        String[] lines = response.asString().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"name\":\"fulano\""));
+    }
+
+    private void createUser(String name, int age) {
+        var user = new CreateUserRequest();
+        user.setName(name);
+        user.setAge(age);
+
+        given()
+                    .contentType(ContentType.JSON)
+                    .body(user)
+                .when()
+                    .post(apiURL)
+                .then()
+                    .statusCode(201);
+    }
+}
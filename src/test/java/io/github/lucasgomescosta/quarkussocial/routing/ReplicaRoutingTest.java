@@ -0,0 +1,192 @@
+package io.github.lucasgomescosta.quarkussocial.routing;
+
+import io.agroal.api.AgroalDataSource;
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.CreateUserRequest;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@TestProfile(ReplicaRoutingTest.SeparateReplica.class)
+class ReplicaRoutingTest {
+
+    public static class SeparateReplica implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("quarkus.datasource.\"replica\".jdbc.url", "jdbc:h2:mem:quarkus-social-replica;DB_CLOSE_DELAY=-1");
+        }
+    }
+
+    @Inject
+    SessionFactory sessionFactory;
+    @Inject
+    AgroalDataSource primary;
+    @Inject
+    @DataSource(RoutingConfiguration.REPLICA)
+    AgroalDataSource replica;
+
+    @BeforeEach
+    public void setUP() throws SQLException {
+        replicate();
+    }
+
+    @Test
+    @DisplayName("should read from the replica and write to the primary")
+    public void readFromReplicaTest() throws SQLException {
+        Integer id = createUser("replicated");
+
+        given()
+            .when()
+                .get("/users?limit=1000")
+            .then()
+                .statusCode(200)
+                .body("id", not(hasItem(id)));
+
+        replicate();
+        given()
+            .when()
+                .get("/users?limit=1000")
+            .then()
+                .statusCode(200)
+                .body("id", hasItem(id));
+    }
+
+    @Test
+    @DisplayName("should read your own writes from the primary right after a write")
+    public void readYourWritesTest() {
+        var response = given()
+                .contentType(ContentType.JSON)
+                .body(user("just written"))
+            .when()
+                .post("/users")
+            .then()
+                .statusCode(201)
+                .cookie(ReplicaRoutingFilter.READ_PRIMARY_UNTIL)
+                .extract();
+        Integer id = response.path("id");
+
+        given()
+                .cookie(ReplicaRoutingFilter.READ_PRIMARY_UNTIL, response.cookie(ReplicaRoutingFilter.READ_PRIMARY_UNTIL))
+            .when()
+                .get("/users?limit=1000")
+            .then()
+                .statusCode(200)
+                .body("id", hasItem(id));
+
+        // an expired window goes back to the replica
+        given()
+                .cookie(ReplicaRoutingFilter.READ_PRIMARY_UNTIL, "0")
+            .when()
+                .get("/users?limit=1000")
+            .then()
+                .statusCode(200)
+                .body("id", not(hasItem(id)));
+    }
+
+    @Test
+    @DisplayName("should not cache what a lagging replica served")
+    public void laggingReplicaTest() throws SQLException {
+        Integer author = createUser("author");
+        Integer follower = createUser("follower");
+        replicate();
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("followerId", follower))
+            .when()
+                .put("/users/{userId}/followers", author)
+            .then()
+                .statusCode(204);
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("text", "not replicated yet"))
+            .when()
+                .post("/users/{userId}/posts", author)
+            .then()
+                .statusCode(201);
+
+        var userRegion = sessionFactory.getStatistics().getDomainDataRegionStatistics(User.class.getName());
+        long userPuts = userRegion.getPutCount();
+
+        // the edge is not on the replica, the follow graph is loaded from the primary
+        given()
+                .header("followerId", follower)
+            .when()
+                .get("/users/{userId}/posts", author)
+            .then()
+                .statusCode(200)
+                .body("content", empty());
+        assertEquals(userPuts, userRegion.getPutCount());
+
+        replicate();
+        given()
+                .header("followerId", follower)
+            .when()
+                .get("/users/{userId}/posts", author)
+            .then()
+                .statusCode(200)
+                .body("content.text", contains("not replicated yet"));
+        given()
+            .when()
+                .get("/users/{userId}/followers?countOnly=true", author)
+            .then()
+                .statusCode(200)
+                .body("followersCount", is(1));
+    }
+
+    private Integer createUser(String name) {
+        return given()
+                .contentType(ContentType.JSON)
+                .body(user(name))
+            .when()
+                .post("/users")
+            .then()
+                .statusCode(201)
+                .extract().path("id");
+    }
+
+    private static CreateUserRequest user(String name) {
+        var user = new CreateUserRequest();
+        user.setName(name);
+        user.setAge(30);
+        return user;
+    }
+
+    /**
+     * Copies the primary into the replica database, standing in for streaming replication.
+     */
+    private void replicate() throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (var connection = primary.getConnection();
+             var result = connection.createStatement().executeQuery("script")) {
+            while (result.next()) {
+                script.add(result.getString(1));
+            }
+        }
+        try (var connection = replica.getConnection();
+             var statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        }
+        assertFalse(script.isEmpty());
+    }
+}
@@ -0,0 +1,301 @@
+package io.github.lucasgomescosta.quarkussocial.routing;
+
+import io.agroal.api.AgroalDataSource;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.CreatePostRequest;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.CreateUserRequest;
+import io.github.lucasgomescosta.quarkussocial.rest.dto.FollowerRequest;
+import io.quarkus.agroal.runtime.DataSources;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@TestProfile(ShardingTest.TwoShards.class)
+class ShardingTest {
+
+    private static final String SHARD = "shard1";
+
+    public static class TwoShards implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "quarkus.datasource.\"shard1\".db-kind", "h2",
+                    "quarkus.datasource.\"shard1\".username", "sa",
+                    "quarkus.datasource.\"shard1\".password", "sa",
+                    "quarkus.datasource.\"shard1\".jdbc.url", "jdbc:h2:mem:quarkus-social-shard1;DB_CLOSE_DELAY=-1",
+                    "social.sharding.shards", RoutingConfiguration.PRIMARY + "," + SHARD);
+        }
+    }
+
+    @Inject
+    AgroalDataSource primary;
+    @Inject
+    ShardRouter router;
+
+    // looked up, the datasource only exists in this profile
+    private AgroalDataSource shard;
+
+    private final List<Long> primaryUsers = new ArrayList<>();
+    private final List<Long> shardUsers = new ArrayList<>();
+    private final Map<Long, String> names = new HashMap<>();
+
+    @BeforeEach
+    public void setUP() throws SQLException {
+        shard = DataSources.fromName(SHARD);
+        copySchema();
+        for (int i = 0; i < 10; i++) {
+            Long id = createUser("user " + i);
+            names.put(id, "user " + i);
+            (RoutingConfiguration.PRIMARY.equals(router.shardOf(id)) ? primaryUsers : shardUsers).add(id);
+        }
+        assertTrue(primaryUsers.size() >= 2 && shardUsers.size() >= 2);
+    }
+
+    @Test
+    @DisplayName("should store each user on the shard of its id only")
+    public void userOnItsShardTest() throws SQLException {
+        for (Long id : primaryUsers) {
+            assertTrue(exists(primary, id));
+            assertFalse(exists(shard, id));
+        }
+        for (Long id : shardUsers) {
+            assertTrue(exists(shard, id));
+            assertFalse(exists(primary, id));
+        }
+    }
+
+    @Test
+    @DisplayName("should list the users of every shard in id order")
+    public void listUsersAcrossShardsTest() {
+        List<Long> ids = new ArrayList<>(primaryUsers);
+        ids.addAll(shardUsers);
+        long after = ids.stream().mapToLong(Long::longValue).min().orElseThrow() - 1;
+
+        List<Integer> listed = given()
+                .queryParam("after", after)
+                .queryParam("limit", 1000)
+            .when()
+                .get("/users")
+            .then()
+                .statusCode(200)
+                .extract().path("id");
+
+        assertEquals(ids.size(), listed.size());
+        for (int i = 1; i < listed.size(); i++) {
+            assertTrue(listed.get(i - 1) < listed.get(i));
+        }
+        ids.forEach(id -> assertTrue(listed.contains(id.intValue())));
+
+        given()
+                .queryParam("after", after)
+                .queryParam("limit", 3)
+            .when()
+                .get("/users")
+            .then()
+                .statusCode(200)
+                .body("size()", is(3))
+                .body("id", contains(listed.subList(0, 3).toArray()));
+    }
+
+    @Test
+    @DisplayName("should follow and read posts within a shard")
+    public void followWithinShardTest() {
+        Long user = shardUsers.get(0);
+        Long follower = shardUsers.get(1);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(followerRequest(follower))
+                .pathParam("userId", user)
+            .when()
+                .put("/users/{userId}/followers")
+            .then()
+                .statusCode(204);
+
+        var post = new CreatePostRequest();
+        post.setText("on shard");
+        given()
+                .contentType(ContentType.JSON)
+                .body(post)
+                .pathParam("userId", user)
+            .when()
+                .post("/users/{userId}/posts")
+            .then()
+                .statusCode(201);
+
+        given()
+                .pathParam("userId", user)
+                .header("followerId", follower)
+            .when()
+                .get("/users/{userId}/posts")
+            .then()
+                .statusCode(200)
+                .body("content.text", contains("on shard"));
+
+        // the not following reader lives on the other shard
+        given()
+                .pathParam("userId", user)
+                .header("followerId", primaryUsers.get(0))
+            .when()
+                .get("/users/{userId}/posts")
+            .then()
+                .statusCode(403);
+    }
+
+    @Test
+    @DisplayName("should follow, read posts and unfollow across shards")
+    public void followAcrossShardsTest() {
+        Long user = shardUsers.get(0);
+        Long follower = primaryUsers.get(0);
+
+        var post = new CreatePostRequest();
+        post.setText("from the other shard");
+        given()
+                .contentType(ContentType.JSON)
+                .body(post)
+                .pathParam("userId", user)
+            .when()
+                .post("/users/{userId}/posts")
+            .then()
+                .statusCode(201);
+
+        // twice: the second one finds both halves of the edge in place
+        for (int i = 0; i < 2; i++) {
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(followerRequest(follower))
+                    .pathParam("userId", user)
+                .when()
+                    .put("/users/{userId}/followers")
+                .then()
+                    .statusCode(204);
+        }
+
+        given()
+                .pathParam("userId", user)
+                .header("followerId", follower)
+            .when()
+                .get("/users/{userId}/posts")
+            .then()
+                .statusCode(200)
+                .body("content.text", contains("from the other shard"));
+        given()
+                .pathParam("userId", user)
+            .when()
+                .get("/users/{userId}/followers")
+            .then()
+                .statusCode(200)
+                .body("followersCount", is(1))
+                .body("content.id", contains(follower.intValue()))
+                .body("content.name", contains(names.get(follower)));
+        given()
+                .pathParam("userId", follower)
+            .when()
+                .get("/users/{userId}/feed")
+            .then()
+                .statusCode(200)
+                .body("content.text", contains("from the other shard"));
+        assertEquals(1, followingCount(follower));
+
+        given()
+                .pathParam("userId", user)
+                .queryParam("followerId", follower)
+            .when()
+                .delete("/users/{userId}/followers")
+            .then()
+                .statusCode(204);
+
+        given()
+                .pathParam("userId", follower)
+            .when()
+                .get("/users/{userId}/feed")
+            .then()
+                .statusCode(200)
+                .body("content", empty());
+        assertEquals(0, followingCount(follower));
+    }
+
+    private Long createUser(String name) {
+        var user = new CreateUserRequest();
+        user.setName(name);
+        user.setAge(30);
+        return given()
+                .contentType(ContentType.JSON)
+                .body(user)
+            .when()
+                .post("/users")
+            .then()
+                .statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+
+    private static int followingCount(Long userId) {
+        return given()
+                .queryParam("after", userId - 1)
+                .queryParam("limit", 1)
+            .when()
+                .get("/users")
+            .then()
+                .statusCode(200)
+                .body("id", contains(userId.intValue()))
+                .extract().path("[0].followingCount");
+    }
+
+    private static FollowerRequest followerRequest(Long followerId) {
+        var request = new FollowerRequest();
+        request.setFollowerId(followerId);
+        return request;
+    }
+
+    private static boolean exists(AgroalDataSource dataSource, Long id) throws SQLException {
+        try (var connection = dataSource.getConnection();
+             var statement = connection.prepareStatement("select 1 from users where id = ?")) {
+            statement.setLong(1, id);
+            try (var result = statement.executeQuery()) {
+                return result.next();
+            }
+        }
+    }
+
+    /**
+     * Creates the schema of the primary on the shard, left empty.
+     */
+    private void copySchema() throws SQLException {
+        try (var connection = shard.getConnection();
+             var result = connection.createStatement().executeQuery(
+                     "select count(*) from information_schema.tables where table_schema = 'PUBLIC' and table_name = 'USERS'")) {
+            result.next();
+            if(result.getInt(1) > 0) {
+                return;
+            }
+        }
+        List<String> script = new ArrayList<>();
+        try (var connection = primary.getConnection();
+             var result = connection.createStatement().executeQuery("script nodata")) {
+            while (result.next()) {
+                script.add(result.getString(1));
+            }
+        }
+        try (var connection = shard.getConnection();
+             var statement = connection.createStatement()) {
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        }
+    }
+}
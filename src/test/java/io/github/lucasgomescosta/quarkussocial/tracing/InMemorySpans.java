@@ -0,0 +1,18 @@
+package io.github.lucasgomescosta.quarkussocial.tracing;
+
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+
+import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
+
+/**
+ * Replaces the logging exporter in tests, the spans can be asserted on.
+ */
+public class InMemorySpans {
+
+    @Produces
+    @Singleton
+    public InMemorySpanExporter spanExporter() {
+        return InMemorySpanExporter.create();
+    }
+}
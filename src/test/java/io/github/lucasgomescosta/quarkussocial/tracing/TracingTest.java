@@ -0,0 +1,130 @@
+package io.github.lucasgomescosta.quarkussocial.tracing;
+
+import io.github.lucasgomescosta.quarkussocial.domain.model.Post;
+import io.github.lucasgomescosta.quarkussocial.domain.model.User;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.FollowerRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.PostRepository;
+import io.github.lucasgomescosta.quarkussocial.domain.repository.UserRepository;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class TracingTest {
+
+    @Inject
+    UserRepository userRepository;
+    @Inject
+    FollowerRepository followerRepository;
+    @Inject
+    PostRepository postRepository;
+    @Inject
+    SdkTracerProvider tracerProvider;
+    @Inject
+    InMemorySpanExporter exporter;
+
+    Long userId;
+    Long followerId;
+
+    @BeforeEach
+    @Transactional
+    public void setUP() {
+        var user = new User();
+        user.setAge(30);
+        user.setName("fulano");
+        userRepository.persist(user);
+        userId = user.getId();
+
+        var follower = new User();
+        follower.setAge(33);
+        follower.setName("cicrano");
+        userRepository.persist(follower);
+        followerId = follower.getId();
+
+        followerRepository.follow(user, follower);
+
+        Post post = new Post();
+        post.setText("Hello");
+        post.setUser(user);
+        postRepository.create(post);
+    }
+
+    @Test
+    @DisplayName("should trace a posts listing down to the queries, the DTO mapping and the serialization")
+    public void listPostsTraceTest() throws InterruptedException {
+        // leave out the spans of the fixture
+        tracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+        exporter.reset();
+
+        given()
+                .pathParam("userId", userId)
+                .header("followerId", followerId)
+                .queryParam("limit", 5)
+            .when()
+                .get("/users/{userId}/posts")
+            .then()
+                .statusCode(200);
+
+        SpanData server = awaitSpan("GET /users/{userId}/posts");
+        assertEquals(SpanKind.SERVER, server.getKind());
+        assertEquals(200L, server.getAttributes().get(RequestTracing.HTTP_STATUS_CODE));
+
+        List<SpanData> trace = exporter.getFinishedSpanItems().stream()
+                .filter(span -> span.getTraceId().equals(server.getTraceId()))
+                .collect(Collectors.toList());
+        Map<String, SpanData> byName = trace.stream()
+                .collect(Collectors.toMap(SpanData::getName, Function.identity(), (first, second) -> first));
+
+        SpanData resource = byName.get("PostResource.listPosts");
+        assertNotNull(resource);
+        assertEquals(server.getSpanId(), resource.getParentSpanId());
+
+        SpanData page = byName.get("PostRepository.findPageByUser");
+        assertNotNull(page);
+        assertEquals(resource.getSpanId(), page.getParentSpanId());
+        assertNotNull(byName.get("PostResponse.fromEntity"));
+        assertEquals(server.getSpanId(), byName.get("serialize PostsPageResponse").getParentSpanId());
+
+        // the post query is a JDBC client span under its repository span
+        Optional<SpanData> query = trace.stream()
+                .filter(span -> span.getKind() == SpanKind.CLIENT)
+                .filter(span -> span.getParentSpanId().equals(page.getSpanId()))
+                .findFirst();
+        assertTrue(query.isPresent());
+        assertEquals("SELECT", query.get().getName());
+        assertEquals("h2", query.get().getAttributes().get(TracingDriver.DB_SYSTEM));
+        assertTrue(query.get().getAttributes().get(TracingDriver.DB_STATEMENT).contains("posts"));
+    }
+
+    private SpanData awaitSpan(String name) throws InterruptedException {
+        // the server span ends once the response is written, possibly after the client got it
+        for (int i = 0; i < 50; i++) {
+            tracerProvider.forceFlush().join(1, TimeUnit.SECONDS);
+            Optional<SpanData> span = exporter.getFinishedSpanItems().stream()
+                    .filter(candidate -> candidate.getName().equals(name))
+                    .findFirst();
+            if(span.isPresent()) {
+                return span.get();
+            }
+            Thread.sleep(100);
+        }
+        return fail("no span named " + name + " in " + exporter.getFinishedSpanItems().stream().map(SpanData::getName).collect(Collectors.toList()));
+    }
+}